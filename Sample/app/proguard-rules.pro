@@ -28,3 +28,4 @@
 -keep class com.chenenyu.router.** {*;}
 -keep class * implements com.chenenyu.router.template.ParamInjector {*;}
 
+-keepnames @com.chenenyu.router.annotation.Route class *
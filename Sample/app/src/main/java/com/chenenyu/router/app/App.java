@@ -2,6 +2,7 @@ package com.chenenyu.router.app;
 
 import android.app.Application;
 
+import com.chenenyu.router.AppModuleRegistry;
 import com.chenenyu.router.Configuration;
 import com.chenenyu.router.Router;
 
@@ -17,7 +18,9 @@ public class App extends Application {
         // init
         Router.initialize(new Configuration.Builder()
                 .setDebuggable(BuildConfig.DEBUG)
-                .registerModules("module1", "module2", "app")
+                .setModuleRegistry(new AppModuleRegistry())
+                .setLazyRouteGroups(true)
+                .setDeferTargetLoading(true)
                 .build());
 
 //        Router.addGlobalInterceptor(new GlobalInterceptor());
@@ -17,4 +17,10 @@ public @interface Interceptor {
      * Interceptor name.
      */
     String value();
+
+    /**
+     * Interceptors with higher priority run first, e.g. give cheap reject checks a high priority.
+     * Interceptors with the same priority run in the declared order.
+     */
+    int priority() default 0;
 }
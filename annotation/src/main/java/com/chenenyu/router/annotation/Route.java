@@ -14,7 +14,8 @@ import java.lang.annotation.Target;
 @Retention(RetentionPolicy.RUNTIME)
 public @interface Route {
     /**
-     * Route path.
+     * Route path. The path part of an absolute route may contain variables,
+     * such as <code>app://user/{id}/post/{postId}</code>, which are put into extras when matched.
      */
     String[] value();
 
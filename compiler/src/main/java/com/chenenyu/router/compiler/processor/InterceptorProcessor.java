@@ -1,20 +1,27 @@
 package com.chenenyu.router.compiler.processor;
 
 import com.chenenyu.router.annotation.Interceptor;
+import com.chenenyu.router.compiler.util.CodeChunks;
 import com.chenenyu.router.compiler.util.Logger;
 import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
 import com.squareup.javapoet.JavaFile;
 import com.squareup.javapoet.MethodSpec;
 import com.squareup.javapoet.ParameterSpec;
 import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
 import com.squareup.javapoet.TypeSpec;
 import com.squareup.javapoet.WildcardTypeName;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
 
 import javax.annotation.processing.AbstractProcessor;
 import javax.annotation.processing.ProcessingEnvironment;
@@ -24,15 +31,21 @@ import javax.annotation.processing.SupportedOptions;
 import javax.annotation.processing.SupportedSourceVersion;
 import javax.lang.model.SourceVersion;
 import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.Modifier;
 import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.ElementFilter;
 
 import static com.chenenyu.router.compiler.util.Consts.CLASS_JAVA_DOC;
 import static com.chenenyu.router.compiler.util.Consts.INTERCEPTOR_ANNOTATION_TYPE;
+import static com.chenenyu.router.compiler.util.Consts.INTERCEPTOR_FACTORY;
+import static com.chenenyu.router.compiler.util.Consts.INTERCEPTOR_FACTORY_FULL_NAME;
 import static com.chenenyu.router.compiler.util.Consts.INTERCEPTOR_FULL_NAME;
 import static com.chenenyu.router.compiler.util.Consts.INTERCEPTOR_TABLE;
 import static com.chenenyu.router.compiler.util.Consts.INTERCEPTOR_TABLE_FULL_NAME;
+import static com.chenenyu.router.compiler.util.Consts.METHOD_CREATE;
 import static com.chenenyu.router.compiler.util.Consts.METHOD_HANDLE;
+import static com.chenenyu.router.compiler.util.Consts.METHOD_PRIORITY;
 import static com.chenenyu.router.compiler.util.Consts.OPTION_MODULE_NAME;
 import static com.chenenyu.router.compiler.util.Consts.PACKAGE_NAME;
 
@@ -106,6 +119,22 @@ public class InterceptorProcessor extends AbstractProcessor {
                 .addModifiers(Modifier.PUBLIC)
                 .addParameter(mapParameterSpec);
 
+        // String name
+        ParameterSpec nameParameterSpec = ParameterSpec.builder(String.class, "name").build();
+        MethodSpec.Builder createInterceptor = MethodSpec.methodBuilder(METHOD_CREATE)
+                .addAnnotation(Override.class)
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter(nameParameterSpec)
+                .returns(ClassName.get(interceptorType));
+        MethodSpec.Builder interceptorPriority = MethodSpec.methodBuilder(METHOD_PRIORITY)
+                .addAnnotation(Override.class)
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter(nameParameterSpec)
+                .returns(int.class);
+        List<CodeBlock> handles = new ArrayList<>();
+        SortedMap<String, CodeBlock> creates = new TreeMap<>();
+        SortedMap<String, CodeBlock> priorities = new TreeMap<>();
+
         Map<String, String> interceptorRecorder = new HashMap<>();
         for (TypeElement element : elements) {
             mLogger.info(String.format("Found interceptor: %s", element.getQualifiedName()));
@@ -115,7 +144,16 @@ public class InterceptorProcessor extends AbstractProcessor {
                 throw new RuntimeException(String.format("Duplicate interceptor name: %s[%s, %s]",
                         name, element.getQualifiedName(), interceptorRecorder.get(name)));
             }
-            handleInterceptors.addStatement("map.put($S, $T.class)", name, ClassName.get(element));
+            handles.add(CodeBlock.of("map.put($S, $T.class)", name, ClassName.get(element)));
+            if (isInstantiable(element)) {
+                creates.put(name, CodeBlock.of("new $T()", ClassName.get(element)));
+            } else {
+                mLogger.warn(element, String.format("%s has no public no-arg constructor, "
+                        + "it will be created by reflection.", element.getQualifiedName()));
+            }
+            if (interceptor.priority() != 0) {
+                priorities.put(name, CodeBlock.of("$L", interceptor.priority()));
+            }
             interceptorRecorder.put(name, element.getQualifiedName().toString());
         }
 
@@ -123,18 +161,48 @@ public class InterceptorProcessor extends AbstractProcessor {
          * class
          */
         TypeElement interfaceType = processingEnv.getElementUtils().getTypeElement(INTERCEPTOR_TABLE_FULL_NAME);
-        TypeSpec type = TypeSpec.classBuilder(capitalize(moduleName) + INTERCEPTOR_TABLE)
+        TypeSpec.Builder typeBuilder = TypeSpec.classBuilder(capitalize(moduleName) + INTERCEPTOR_TABLE)
                 .addSuperinterface(ClassName.get(interfaceType))
                 .addModifiers(Modifier.PUBLIC)
-                .addMethod(handleInterceptors.build())
-                .addJavadoc(CLASS_JAVA_DOC)
+                .addJavadoc(CLASS_JAVA_DOC);
+        CodeChunks.addStatements(typeBuilder, handleInterceptors, METHOD_HANDLE, mapParameterSpec, handles);
+        TypeSpec type = typeBuilder.addMethod(handleInterceptors.build()).build();
+
+        TypeElement factoryType = processingEnv.getElementUtils().getTypeElement(INTERCEPTOR_FACTORY_FULL_NAME);
+        TypeSpec.Builder factoryBuilder = TypeSpec.classBuilder(capitalize(moduleName) + INTERCEPTOR_FACTORY)
+                .addSuperinterface(ClassName.get(factoryType))
+                .addModifiers(Modifier.PUBLIC)
+                .addJavadoc(CLASS_JAVA_DOC);
+        CodeChunks.addSwitch(factoryBuilder, createInterceptor, METHOD_CREATE, nameParameterSpec,
+                ClassName.get(interceptorType), creates, CodeBlock.of("null"));
+        CodeChunks.addSwitch(factoryBuilder, interceptorPriority, METHOD_PRIORITY, nameParameterSpec,
+                TypeName.INT, priorities, CodeBlock.of("0"));
+        TypeSpec factory = factoryBuilder.addMethod(createInterceptor.build())
+                .addMethod(interceptorPriority.build())
                 .build();
 
         try {
             JavaFile.builder(PACKAGE_NAME, type).build().writeTo(processingEnv.getFiler());
+            JavaFile.builder(PACKAGE_NAME, factory).build().writeTo(processingEnv.getFiler());
         } catch (IOException e) {
-            e.printStackTrace();
+            mLogger.error("Exception occurred when generating class file: " + e);
+        }
+    }
+
+    /**
+     * Whether the generated factory can create the interceptor by <code>new</code>.
+     */
+    private boolean isInstantiable(TypeElement element) {
+        if (!element.getModifiers().contains(Modifier.PUBLIC) || element.getModifiers().contains(Modifier.ABSTRACT)
+                || (element.getNestingKind().isNested() && !element.getModifiers().contains(Modifier.STATIC))) {
+            return false;
+        }
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(element.getEnclosedElements())) {
+            if (constructor.getParameters().isEmpty() && constructor.getModifiers().contains(Modifier.PUBLIC)) {
+                return true;
+            }
         }
+        return false;
     }
 
     private String capitalize(CharSequence self) {
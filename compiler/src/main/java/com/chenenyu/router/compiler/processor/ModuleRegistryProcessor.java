@@ -0,0 +1,145 @@
+package com.chenenyu.router.compiler.processor;
+
+import com.chenenyu.router.annotation.Interceptor;
+import com.chenenyu.router.annotation.Route;
+import com.chenenyu.router.compiler.util.Logger;
+import com.squareup.javapoet.ArrayTypeName;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.JavaFile;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.TypeSpec;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
+import javax.annotation.processing.SupportedSourceVersion;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.ElementFilter;
+
+import static com.chenenyu.router.compiler.util.Consts.CLASS_JAVA_DOC;
+import static com.chenenyu.router.compiler.util.Consts.INTERCEPTOR_FACTORY_FULL_NAME;
+import static com.chenenyu.router.compiler.util.Consts.INTERCEPTOR_TABLE_FULL_NAME;
+import static com.chenenyu.router.compiler.util.Consts.MODULE_REGISTRY;
+import static com.chenenyu.router.compiler.util.Consts.MODULE_REGISTRY_FULL_NAME;
+import static com.chenenyu.router.compiler.util.Consts.OPTION_MODULE_NAME;
+import static com.chenenyu.router.compiler.util.Consts.OPTION_MODULE_REGISTRY;
+import static com.chenenyu.router.compiler.util.Consts.PACKAGE_NAME;
+import static com.chenenyu.router.compiler.util.Consts.ROUTE_TABLE_FULL_NAME;
+import static com.chenenyu.router.compiler.util.Consts.TARGET_INTERCEPTORS_FULL_NAME;
+
+/**
+ * Aggregates the generated tables of all modules on the classpath into one <code>ModuleRegistry</code>,
+ * so that Router needn't find them by reflection at runtime. It only works in the module that
+ * passes <code>moduleRegistry=true</code>, usually the application module.
+ */
+@SupportedAnnotationTypes("*")
+@SupportedOptions({OPTION_MODULE_NAME, OPTION_MODULE_REGISTRY})
+@SupportedSourceVersion(SourceVersion.RELEASE_7)
+public class ModuleRegistryProcessor extends AbstractProcessor {
+    private String mModuleName;
+    private boolean mEnabled;
+    private boolean mGenerated;
+    private Logger mLogger;
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnvironment) {
+        super.init(processingEnvironment);
+        mModuleName = processingEnvironment.getOptions().get(OPTION_MODULE_NAME);
+        mEnabled = Boolean.parseBoolean(processingEnvironment.getOptions().get(OPTION_MODULE_REGISTRY));
+        mLogger = new Logger(processingEnvironment.getMessager());
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> set, RoundEnvironment roundEnvironment) {
+        if (!mEnabled || mGenerated || roundEnvironment.processingOver()) {
+            return false;
+        }
+        // Tables of this module are generated in this round, wait until they are visible.
+        if (!roundEnvironment.getElementsAnnotatedWith(Route.class).isEmpty()
+                || !roundEnvironment.getElementsAnnotatedWith(Interceptor.class).isEmpty()) {
+            return false;
+        }
+        if (mModuleName == null) {
+            throw new RuntimeException(String.format("No option `%s` passed to ModuleRegistry annotation processor.",
+                    OPTION_MODULE_NAME));
+        }
+        mLogger.info(String.format(">>> %s: ModuleRegistryProcessor begin... <<<", mModuleName));
+        String validModuleName = mModuleName.replace(".", "_").replace("-", "_");
+        generateModuleRegistry(validModuleName);
+        mGenerated = true;
+        mLogger.info(String.format(">>> %s: ModuleRegistryProcessor end. <<<", mModuleName));
+        return false;
+    }
+
+    private void generateModuleRegistry(String moduleName) {
+        PackageElement packageElement = processingEnv.getElementUtils().getPackageElement(PACKAGE_NAME);
+        List<TypeElement> classes = packageElement == null ? Collections.<TypeElement>emptyList()
+                : ElementFilter.typesIn(packageElement.getEnclosedElements());
+
+        TypeSpec type = TypeSpec.classBuilder(capitalize(moduleName) + MODULE_REGISTRY)
+                .addSuperinterface(ClassName.get(processingEnv.getElementUtils().getTypeElement(MODULE_REGISTRY_FULL_NAME)))
+                .addModifiers(Modifier.PUBLIC)
+                .addMethod(generateGetter("getRouteTables", ROUTE_TABLE_FULL_NAME, classes))
+                .addMethod(generateGetter("getTargetInterceptors", TARGET_INTERCEPTORS_FULL_NAME, classes))
+                .addMethod(generateGetter("getInterceptorTables", INTERCEPTOR_TABLE_FULL_NAME, classes))
+                .addMethod(generateGetter("getInterceptorFactories", INTERCEPTOR_FACTORY_FULL_NAME, classes))
+                .addJavadoc(CLASS_JAVA_DOC)
+                .build();
+        try {
+            JavaFile.builder(PACKAGE_NAME, type).build().writeTo(processingEnv.getFiler());
+        } catch (IOException e) {
+            mLogger.error("Exception occurred when generating class file: " + e);
+        }
+    }
+
+    /**
+     * <code>return new Xxx[]{new AppXxx(), new Module1Xxx()};</code>
+     */
+    private MethodSpec generateGetter(String methodName, String interfaceName, List<TypeElement> classes) {
+        TypeElement interfaceType = processingEnv.getElementUtils().getTypeElement(interfaceName);
+        List<String> implementations = new ArrayList<>();
+        for (TypeElement element : classes) {
+            // generated classes are named <Module><Interface>, e.g. route groups of tables are not.
+            String simpleName = element.getSimpleName().toString();
+            if (simpleName.endsWith(interfaceType.getSimpleName().toString()) && !simpleName.contains("$$")
+                    && element.getModifiers().contains(Modifier.PUBLIC) && !element.getModifiers().contains(Modifier.ABSTRACT)
+                    && processingEnv.getTypeUtils().isAssignable(element.asType(),
+                    processingEnv.getTypeUtils().erasure(interfaceType.asType()))) {
+                implementations.add(element.getQualifiedName().toString());
+            }
+        }
+        // stable output whatever the classpath order is
+        Collections.sort(implementations);
+
+        CodeBlock.Builder array = CodeBlock.builder().add("return new $T[]{", ClassName.get(interfaceType));
+        for (int i = 0; i < implementations.size(); i++) {
+            mLogger.info(String.format("Found %s: %s", interfaceType.getSimpleName(), implementations.get(i)));
+            array.add(i == 0 ? "new $T()" : ", new $T()", ClassName.bestGuess(implementations.get(i)));
+        }
+        array.add("}");
+        return MethodSpec.methodBuilder(methodName)
+                .addAnnotation(Override.class)
+                .addModifiers(Modifier.PUBLIC)
+                .returns(ArrayTypeName.of(ClassName.get(interfaceType)))
+                .addStatement("$L", array.build())
+                .build();
+    }
+
+    private String capitalize(CharSequence self) {
+        return self.length() == 0 ? "" :
+                "" + Character.toUpperCase(self.charAt(0)) + self.subSequence(1, self.length());
+    }
+
+}
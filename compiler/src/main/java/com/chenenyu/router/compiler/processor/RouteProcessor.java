@@ -1,9 +1,15 @@
 package com.chenenyu.router.compiler.processor;
 
 import com.chenenyu.router.annotation.InjectParam;
+import com.chenenyu.router.annotation.Interceptor;
 import com.chenenyu.router.annotation.Route;
+import com.chenenyu.router.compiler.util.CodeChunks;
 import com.chenenyu.router.compiler.util.Logger;
+import com.chenenyu.router.compiler.util.PerfectHash;
+import com.chenenyu.router.compiler.util.RouteIndexWriter;
 import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
 import com.squareup.javapoet.JavaFile;
 import com.squareup.javapoet.MethodSpec;
 import com.squareup.javapoet.ParameterSpec;
@@ -12,12 +18,18 @@ import com.squareup.javapoet.TypeName;
 import com.squareup.javapoet.TypeSpec;
 import com.squareup.javapoet.WildcardTypeName;
 
+import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
 
 import javax.annotation.processing.AbstractProcessor;
 import javax.annotation.processing.ProcessingEnvironment;
@@ -37,14 +49,33 @@ import static com.chenenyu.router.compiler.util.Consts.ACTIVITY_FULL_NAME;
 import static com.chenenyu.router.compiler.util.Consts.CLASS_JAVA_DOC;
 import static com.chenenyu.router.compiler.util.Consts.FRAGMENT_FULL_NAME;
 import static com.chenenyu.router.compiler.util.Consts.FRAGMENT_V4_FULL_NAME;
+import static com.chenenyu.router.compiler.util.Consts.METHOD_GET_ASSET_NAME;
+import static com.chenenyu.router.compiler.util.Consts.METHOD_GET_FINGERPRINT;
+import static com.chenenyu.router.compiler.util.Consts.METHOD_GET_GROUP;
+import static com.chenenyu.router.compiler.util.Consts.METHOD_GET_GROUPS;
+import static com.chenenyu.router.compiler.util.Consts.METHOD_GET_TARGET;
 import static com.chenenyu.router.compiler.util.Consts.METHOD_HANDLE;
+import static com.chenenyu.router.compiler.util.Consts.METHOD_HANDLE_NAMES;
+import static com.chenenyu.router.compiler.util.Consts.METHOD_HANDLE_TARGETS;
+import static com.chenenyu.router.compiler.util.Consts.METHOD_INDEX_OF;
 import static com.chenenyu.router.compiler.util.Consts.OPTION_MODULE_NAME;
+import static com.chenenyu.router.compiler.util.Consts.OPTION_ROUTE_ASSET_DIR;
 import static com.chenenyu.router.compiler.util.Consts.PACKAGE_NAME;
+import static com.chenenyu.router.compiler.util.Consts.PERFECT_HASH_FULL_NAME;
 import static com.chenenyu.router.compiler.util.Consts.ROUTE_ANNOTATION_TYPE;
+import static com.chenenyu.router.compiler.util.Consts.ROUTE_ASSET_DIR;
+import static com.chenenyu.router.compiler.util.Consts.ROUTE_ASSET_SUFFIX;
+import static com.chenenyu.router.compiler.util.Consts.ROUTE_GROUP;
+import static com.chenenyu.router.compiler.util.Consts.ROUTE_GROUPS_FULL_NAME;
+import static com.chenenyu.router.compiler.util.Consts.ROUTE_HASH_TABLE_FULL_NAME;
+import static com.chenenyu.router.compiler.util.Consts.ROUTE_INDEX_ASSET_FULL_NAME;
 import static com.chenenyu.router.compiler.util.Consts.ROUTE_TABLE;
 import static com.chenenyu.router.compiler.util.Consts.ROUTE_TABLE_FULL_NAME;
+import static com.chenenyu.router.compiler.util.Consts.ROUTE_TARGET_FULL_NAME;
+import static com.chenenyu.router.compiler.util.Consts.ROUTE_TARGET_TABLE_FULL_NAME;
 import static com.chenenyu.router.compiler.util.Consts.TARGET_INTERCEPTORS;
 import static com.chenenyu.router.compiler.util.Consts.TARGET_INTERCEPTORS_FULL_NAME;
+import static com.chenenyu.router.compiler.util.Consts.TARGET_INTERCEPTOR_NAMES_FULL_NAME;
 
 /**
  * {@link Route} annotation processor.
@@ -52,7 +83,7 @@ import static com.chenenyu.router.compiler.util.Consts.TARGET_INTERCEPTORS_FULL_
  * Created by chenenyu on 2016/12/20.
  */
 @SupportedAnnotationTypes(ROUTE_ANNOTATION_TYPE)
-@SupportedOptions(OPTION_MODULE_NAME)
+@SupportedOptions({OPTION_MODULE_NAME, OPTION_ROUTE_ASSET_DIR})
 @SupportedSourceVersion(SourceVersion.RELEASE_7)
 public class RouteProcessor extends AbstractProcessor {
     private String mModuleName;
@@ -83,8 +114,9 @@ public class RouteProcessor extends AbstractProcessor {
         }
         if (mModuleName != null) {
             String validModuleName = mModuleName.replace(".", "_").replace("-", "_");
-            generateRouteTable(validModuleName, typeElements);
-            generateTargetInterceptors(validModuleName, typeElements);
+            Map<String, Integer> priorities = interceptorPriorities(roundEnvironment);
+            generateRouteTable(validModuleName, typeElements, priorities);
+            generateTargetInterceptors(validModuleName, typeElements, priorities);
         } else {
             throw new RuntimeException(String.format("No option `%s` passed to Route annotation processor.", OPTION_MODULE_NAME));
         }
@@ -147,22 +179,92 @@ public class RouteProcessor extends AbstractProcessor {
     }
 
     /**
-     * RouteTable.
+     * Verify the path variables(like <code>app://user/{id}</code>) of route path.
+     * A variable must be a whole path segment of an absolute route, and its name must be
+     * a unique java identifier.
+     *
+     * @return The path with variable names erased(<code>app://user/{}</code>),
+     * or null if it has no variables.
      */
-    private void generateRouteTable(String moduleName, Set<TypeElement> elements) {
+    private String validatePath(TypeElement element, String path) {
+        if (!hasBrace(path)) {
+            return null;
+        }
+        int schemeEnd = path.indexOf("://");
+        if (schemeEnd <= 0) {
+            throw new RuntimeException(String.format("Path variables are only supported in absolute route: %s[%s]",
+                    path, element.getQualifiedName()));
+        }
+        int pathStart = path.indexOf('/', schemeEnd + 3);
+        int pathEnd = path.length();
+        for (int i = schemeEnd + 3; i < path.length(); i++) {
+            char c = path.charAt(i);
+            if (c == '?' || c == '#') {
+                pathEnd = i;
+                break;
+            }
+        }
+        if (pathStart < 0 || pathStart > pathEnd
+                || hasBrace(path.substring(0, pathStart)) || hasBrace(path.substring(pathEnd))) {
+            throw new RuntimeException(String.format("Path variables are only supported in the path part: %s[%s]",
+                    path, element.getQualifiedName()));
+        }
+        // head and tail slashes are ignored when matching.
+        String routePath = path.substring(pathStart, pathEnd).replaceAll("^/+|/+$", "");
+        StringBuilder template = new StringBuilder(path.substring(0, pathStart)).append('/');
+        Set<String> names = new HashSet<>();
+        for (String segment : routePath.split("/", -1)) {
+            if (hasBrace(segment)) {
+                String name = segment.length() > 2 && segment.startsWith("{") && segment.endsWith("}")
+                        ? segment.substring(1, segment.length() - 1) : null;
+                if (name == null || !SourceVersion.isIdentifier(name)) {
+                    throw new RuntimeException(String.format("Illegal path variable `%s` in route: %s[%s]",
+                            segment, path, element.getQualifiedName()));
+                }
+                if (!names.add(name)) {
+                    throw new RuntimeException(String.format("Duplicate path variable `%s` in route: %s[%s]",
+                            name, path, element.getQualifiedName()));
+                }
+                segment = "{}";
+            }
+            template.append(segment).append('/');
+        }
+        return template.toString();
+    }
+
+    private boolean hasBrace(String str) {
+        return str.indexOf('{') >= 0 || str.indexOf('}') >= 0;
+    }
+
+    /**
+     * RouteTable. Routes are partitioned into groups by {@link #routeGroup(String)}, each group is
+     * generated as a table class, so that the router can load a group only when it's needed.
+     * The table also keeps all paths in a minimal perfect hash, for exact lookups without loading groups.
+     * Methods are split by {@link CodeChunks}, so that they stay small with any count of routes.
+     */
+    private void generateRouteTable(String moduleName, Set<TypeElement> elements, Map<String, Integer> priorities) {
         // Map<String, Class<?>> map
         ParameterizedTypeName mapTypeName = ParameterizedTypeName.get(ClassName.get(Map.class),
                 ClassName.get(String.class), ParameterizedTypeName.get(ClassName.get(Class.class),
                         WildcardTypeName.subtypeOf(Object.class)));
         ParameterSpec mapParameterSpec = ParameterSpec.builder(mapTypeName, "map").build();
 
-        MethodSpec.Builder methodHandle = MethodSpec.methodBuilder(METHOD_HANDLE)
-                .addAnnotation(Override.class)
-                .addModifiers(Modifier.PUBLIC)
-                .addParameter(mapParameterSpec);
-
         // 记录path->element，防止重复的route path
         Map<String, String> pathRecorder = new HashMap<>();
+        // 记录去掉变量名的模板path->element，防止只有变量名不同的route path
+        Map<String, String> templateRecorder = new HashMap<>();
+        // Map<String, RouteTarget> map
+        ClassName routeTargetClass = ClassName.get(processingEnv.getElementUtils().getTypeElement(ROUTE_TARGET_FULL_NAME));
+        ParameterSpec targetsParameterSpec = ParameterSpec.builder(ParameterizedTypeName.get(ClassName.get(Map.class),
+                ClassName.get(String.class), routeTargetClass), "map").build();
+        // group -> statements of handle(), sorted so that the output is stable.
+        Map<String, List<CodeBlock>> groups = new TreeMap<>();
+        // group -> statements of handleTargets()
+        Map<String, List<CodeBlock>> groupTargets = new HashMap<>();
+        // path -> {binary name of target, factory of RouteTarget}, sorted so that the output is stable.
+        Map<String, String[]> hashedTargets = new TreeMap<>();
+        // path -> interceptors of target
+        Map<String, String[]> hashedInterceptors = new HashMap<>();
 
         for (TypeElement element : elements) {
             mLogger.info(String.format("Found routed target: %s", element.getQualifiedName()));
@@ -173,29 +275,284 @@ public class RouteProcessor extends AbstractProcessor {
                     throw new RuntimeException(String.format("Duplicate route path: %s[%s, %s]",
                             path, element.getQualifiedName(), pathRecorder.get(path)));
                 }
-                methodHandle.addStatement("map.put($S, $T.class)", path, ClassName.get(element));
+                String template = validatePath(element, path);
+                if (template != null) {
+                    if (templateRecorder.containsKey(template)) {
+                        throw new RuntimeException(String.format("Duplicate route template: %s[%s, %s]",
+                                path, element.getQualifiedName(), templateRecorder.get(template)));
+                    }
+                    templateRecorder.put(template, element.getQualifiedName().toString());
+                }
+                String group = routeGroup(path);
+                if (!groups.containsKey(group)) {
+                    groups.put(group, new ArrayList<CodeBlock>());
+                    groupTargets.put(group, new ArrayList<CodeBlock>());
+                }
+                String binaryName = processingEnv.getElementUtils().getBinaryName(element).toString();
+                groups.get(group).add(CodeBlock.of("map.put($S, $T.class)", path, ClassName.get(element)));
+                groupTargets.get(group).add(CodeBlock.of("map.put($S, $T.$L($S))", path, routeTargetClass,
+                        targetFactory(element), binaryName));
+                hashedTargets.put(path, new String[]{binaryName, targetFactory(element)});
+                hashedInterceptors.put(path, sortInterceptors(route.interceptors(), priorities));
                 pathRecorder.put(path, element.getQualifiedName().toString());
             }
         }
 
         TypeElement interfaceType = processingEnv.getElementUtils().getTypeElement(ROUTE_TABLE_FULL_NAME);
-        TypeSpec type = TypeSpec.classBuilder(capitalize(moduleName) + ROUTE_TABLE)
+        TypeElement groupsType = processingEnv.getElementUtils().getTypeElement(ROUTE_GROUPS_FULL_NAME);
+        TypeElement targetTableType = processingEnv.getElementUtils().getTypeElement(ROUTE_TARGET_TABLE_FULL_NAME);
+        MethodSpec.Builder methodHandle = MethodSpec.methodBuilder(METHOD_HANDLE)
+                .addAnnotation(Override.class)
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter(mapParameterSpec);
+        MethodSpec.Builder methodHandleTargets = MethodSpec.methodBuilder(METHOD_HANDLE_TARGETS)
+                .addAnnotation(Override.class)
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter(targetsParameterSpec);
+        MethodSpec.Builder methodGetGroups = MethodSpec.methodBuilder(METHOD_GET_GROUPS)
+                .addAnnotation(Override.class)
+                .addModifiers(Modifier.PUBLIC)
+                .returns(String[].class);
+        ParameterSpec groupParameterSpec = ParameterSpec.builder(String.class, "group").build();
+        MethodSpec.Builder methodGetGroup = MethodSpec.methodBuilder(METHOD_GET_GROUP)
+                .addAnnotation(Override.class)
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter(groupParameterSpec)
+                .returns(ClassName.get(interfaceType));
+        List<CodeBlock> handles = new ArrayList<>();
+        List<CodeBlock> targetHandles = new ArrayList<>();
+        SortedMap<String, CodeBlock> groupCases = new TreeMap<>();
+        Set<String> classNames = new HashSet<>();
+        List<JavaFile> files = new ArrayList<>();
+        for (Map.Entry<String, List<CodeBlock>> entry : groups.entrySet()) {
+            String group = entry.getKey();
+            String simpleName = capitalize(moduleName) + ROUTE_GROUP + "$$" + group.replaceAll("[^A-Za-z0-9_]", "_");
+            String className = simpleName;
+            for (int i = 1; !classNames.add(className); i++) {
+                className = simpleName + i;
+            }
+            ClassName groupClass = ClassName.get(PACKAGE_NAME, className);
+            TypeSpec.Builder groupType = TypeSpec.classBuilder(groupClass)
+                    .addSuperinterface(ClassName.get(interfaceType))
+                    .addSuperinterface(ClassName.get(targetTableType))
+                    .addModifiers(Modifier.PUBLIC)
+                    .addJavadoc(CLASS_JAVA_DOC);
+            MethodSpec.Builder groupHandle = MethodSpec.methodBuilder(METHOD_HANDLE)
+                    .addAnnotation(Override.class)
+                    .addModifiers(Modifier.PUBLIC)
+                    .addParameter(mapParameterSpec);
+            MethodSpec.Builder groupHandleTargets = MethodSpec.methodBuilder(METHOD_HANDLE_TARGETS)
+                    .addAnnotation(Override.class)
+                    .addModifiers(Modifier.PUBLIC)
+                    .addParameter(targetsParameterSpec);
+            CodeChunks.addStatements(groupType, groupHandle, METHOD_HANDLE, mapParameterSpec, entry.getValue());
+            CodeChunks.addStatements(groupType, groupHandleTargets, METHOD_HANDLE_TARGETS, targetsParameterSpec,
+                    groupTargets.get(group));
+            files.add(JavaFile.builder(PACKAGE_NAME, groupType
+                    .addMethod(groupHandle.build())
+                    .addMethod(groupHandleTargets.build())
+                    .build()).build());
+            handles.add(CodeBlock.of("new $T().handle(map)", groupClass));
+            targetHandles.add(CodeBlock.of("new $T().handleTargets(map)", groupClass));
+            groupCases.put(group, CodeBlock.of("new $T()", groupClass));
+        }
+        methodGetGroups.addStatement("return $L", CodeChunks.packStrings(new ArrayList<>(groups.keySet())));
+
+        TypeSpec.Builder type = TypeSpec.classBuilder(capitalize(moduleName) + ROUTE_TABLE)
                 .addSuperinterface(ClassName.get(interfaceType))
+                .addSuperinterface(ClassName.get(groupsType))
+                .addSuperinterface(ClassName.get(targetTableType))
                 .addModifiers(Modifier.PUBLIC)
-                .addMethod(methodHandle.build())
-                .addJavadoc(CLASS_JAVA_DOC)
-                .build();
+                .addJavadoc(CLASS_JAVA_DOC);
+        CodeChunks.addStatements(type, methodHandle, METHOD_HANDLE, mapParameterSpec, handles);
+        CodeChunks.addStatements(type, methodHandleTargets, METHOD_HANDLE_TARGETS, targetsParameterSpec,
+                targetHandles);
+        CodeChunks.addSwitch(type, methodGetGroup, METHOD_GET_GROUP, groupParameterSpec, ClassName.get(interfaceType),
+                groupCases, CodeBlock.of("null"));
+        type.addMethod(methodHandle.build())
+                .addMethod(methodHandleTargets.build())
+                .addMethod(methodGetGroups.build())
+                .addMethod(methodGetGroup.build());
+        generateRouteHashTable(moduleName, type, hashedTargets, hashedInterceptors, routeTargetClass);
+        files.add(JavaFile.builder(PACKAGE_NAME, type.build()).build());
+        try {
+            for (JavaFile file : files) {
+                file.writeTo(processingEnv.getFiler());
+            }
+        } catch (IOException e) {
+            mLogger.error("Exception occurred when generating class file: " + e);
+        }
+    }
+
+    /**
+     * Implement RouteHashTable by a minimal perfect hash of all paths. The hash is stored as static
+     * arrays of a nested class, indexed by slot: <code>SEEDS</code>, <code>PATHS</code>, <code>TARGETS</code>,
+     * and <code>TYPES</code> with a char per slot for the factory of RouteTarget. They're packed into
+     * string constants, and initialized on first lookup, so they stay out of heap if the router uses
+     * the mapped asset instead.
+     * <p>
+     * If option <code>routeAssetDir</code> is given, the same routes are written into
+     * <code>router/&lt;module&gt;.rtx</code> under it, and RouteIndexAsset is implemented.
+     *
+     * @param targets      path -> {binary name of target, factory of RouteTarget}
+     * @param interceptors path -> sorted interceptors of the target
+     */
+    private void generateRouteHashTable(String moduleName, TypeSpec.Builder type, Map<String, String[]> targets,
+                                        Map<String, String[]> interceptors, ClassName routeTargetClass) {
+        PerfectHash hash = PerfectHash.build(new ArrayList<>(targets.keySet()));
+        int n = hash.keys.length;
+        List<String> names = new ArrayList<>(n);
+        StringBuilder types = new StringBuilder(n);
+        for (int i = 0; i < n; i++) {
+            String[] target = targets.get(hash.keys[i]);
+            names.add(target[0]);
+            types.append(target[1].charAt(0));
+        }
+        ClassName holderClass = ClassName.get(PACKAGE_NAME, capitalize(moduleName) + ROUTE_TABLE, "Hash");
+        type.addType(TypeSpec.classBuilder(holderClass)
+                .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+                .addField(FieldSpec.builder(int[].class, "SEEDS", Modifier.STATIC, Modifier.FINAL)
+                        .initializer(CodeChunks.packInts(hash.seeds)).build())
+                .addField(FieldSpec.builder(String[].class, "PATHS", Modifier.STATIC, Modifier.FINAL)
+                        .initializer(CodeChunks.packStrings(Arrays.asList(hash.keys))).build())
+                .addField(FieldSpec.builder(String[].class, "TARGETS", Modifier.STATIC, Modifier.FINAL)
+                        .initializer(CodeChunks.packStrings(names)).build())
+                .addField(FieldSpec.builder(String.class, "TYPES", Modifier.STATIC, Modifier.FINAL)
+                        .initializer(CodeChunks.packString(types.toString())).build())
+                .build());
+
+        ClassName perfectHashClass = ClassName.bestGuess(PERFECT_HASH_FULL_NAME);
+        type.addSuperinterface(ClassName.get(processingEnv.getElementUtils().getTypeElement(ROUTE_HASH_TABLE_FULL_NAME)))
+                .addMethod(MethodSpec.methodBuilder(METHOD_INDEX_OF)
+                        .addAnnotation(Override.class)
+                        .addModifiers(Modifier.PUBLIC)
+                        .addParameter(String.class, "path")
+                        .returns(int.class)
+                        .addStatement("return $T.indexOf(path, $T.SEEDS, $T.PATHS)", perfectHashClass, holderClass,
+                                holderClass)
+                        .build())
+                .addMethod(MethodSpec.methodBuilder(METHOD_GET_TARGET)
+                        .addAnnotation(Override.class)
+                        .addModifiers(Modifier.PUBLIC)
+                        .addParameter(int.class, "slot")
+                        .returns(routeTargetClass)
+                        .beginControlFlow("switch ($T.TYPES.charAt(slot))", holderClass)
+                        .addStatement("case 'a': return $T.activity($T.TARGETS[slot])", routeTargetClass, holderClass)
+                        .addStatement("case 's': return $T.supportFragment($T.TARGETS[slot])", routeTargetClass,
+                                holderClass)
+                        .addStatement("default: return $T.fragment($T.TARGETS[slot])", routeTargetClass, holderClass)
+                        .endControlFlow()
+                        .build());
+
+        String assetDir = processingEnv.getOptions().get(OPTION_ROUTE_ASSET_DIR);
+        if (assetDir == null || assetDir.isEmpty()) {
+            return;
+        }
+        RouteIndexWriter writer = new RouteIndexWriter();
+        for (Map.Entry<String, String[]> entry : targets.entrySet()) {
+            writer.add(entry.getKey(), entry.getValue()[0], entry.getValue()[1].charAt(0),
+                    interceptors.get(entry.getKey()));
+        }
+        byte[] index = writer.build();
+        String assetName = ROUTE_ASSET_DIR + "/" + moduleName + ROUTE_ASSET_SUFFIX;
+        File file = new File(assetDir, assetName);
         try {
-            JavaFile.builder(PACKAGE_NAME, type).build().writeTo(processingEnv.getFiler());
+            RouteIndexWriter.write(index, file);
         } catch (IOException e) {
-            e.printStackTrace();
+            throw new RuntimeException("Failed to write route index: " + file, e);
         }
+        mLogger.info(String.format("Route index: %s, %d bytes", file, index.length));
+        type.addSuperinterface(ClassName.get(processingEnv.getElementUtils().getTypeElement(ROUTE_INDEX_ASSET_FULL_NAME)))
+                .addMethod(MethodSpec.methodBuilder(METHOD_GET_ASSET_NAME)
+                        .addAnnotation(Override.class)
+                        .addModifiers(Modifier.PUBLIC)
+                        .returns(String.class)
+                        .addStatement("return $S", assetName)
+                        .build())
+                .addMethod(MethodSpec.methodBuilder(METHOD_GET_FINGERPRINT)
+                        .addAnnotation(Override.class)
+                        .addModifiers(Modifier.PUBLIC)
+                        .returns(long.class)
+                        .addStatement("return $LL", RouteIndexWriter.fingerprintOf(index))
+                        .build());
     }
 
     /**
-     * TargetInterceptors.
+     * Factory method of RouteTarget for the target.
      */
-    private void generateTargetInterceptors(String moduleName, Set<TypeElement> elements) {
+    private String targetFactory(TypeElement element) {
+        if (isSubtype(element, ACTIVITY_FULL_NAME)) {
+            return "activity";
+        } else if (isSubtype(element, FRAGMENT_V4_FULL_NAME)) {
+            return "supportFragment";
+        }
+        return "fragment";
+    }
+
+    /**
+     * Group of a route, it must be the same as <code>RouteGrouping.groupOf(String)</code> at runtime:
+     * <ul>
+     * <li><code>scheme://authority</code> for hierarchical uris with authority, e.g. <code>app://user</code></li>
+     * <li><code>scheme:</code> for other uris with scheme, e.g. <code>app:</code></li>
+     * <li>the first path segment for relative uris, e.g. <code>user</code> of <code>user/profile</code></li>
+     * </ul>
+     */
+    static String routeGroup(String route) {
+        int length = route.length();
+        int i = 0;
+        while (i < length && ":/?#".indexOf(route.charAt(i)) < 0) {
+            i++;
+        }
+        if (i == length || route.charAt(i) != ':') {
+            return route.substring(0, i);
+        }
+        if (!route.startsWith("//", i + 1)) {
+            return route.substring(0, i + 1);
+        }
+        int end = i + 3;
+        while (end < length && "/?#".indexOf(route.charAt(end)) < 0) {
+            end++;
+        }
+        return end == i + 3 ? route.substring(0, i + 1) : route.substring(0, end);
+    }
+
+    /**
+     * Priorities of the interceptors declared in this module, name -> priority.
+     */
+    private Map<String, Integer> interceptorPriorities(RoundEnvironment roundEnvironment) {
+        Map<String, Integer> priorities = new HashMap<>();
+        for (Element element : roundEnvironment.getElementsAnnotatedWith(Interceptor.class)) {
+            Interceptor interceptor = element.getAnnotation(Interceptor.class);
+            priorities.put(interceptor.value(), interceptor.priority());
+        }
+        return priorities;
+    }
+
+    /**
+     * Sort interceptors by priority, stable. Interceptors from other modules are taken as 0 here,
+     * the router sorts their chains again when it builds them.
+     */
+    private String[] sortInterceptors(String[] interceptors, final Map<String, Integer> priorities) {
+        String[] sorted = interceptors.clone();
+        Arrays.sort(sorted, new Comparator<String>() {
+            @Override
+            public int compare(String o1, String o2) {
+                return priorityOf(o2) - priorityOf(o1);
+            }
+
+            private int priorityOf(String name) {
+                Integer priority = priorities.get(name);
+                return priority == null ? 0 : priority;
+            }
+        });
+        return sorted;
+    }
+
+    /**
+     * TargetInterceptors, keyed by classes and by class names for deferred targets.
+     */
+    private void generateTargetInterceptors(String moduleName, Set<TypeElement> elements,
+                                            Map<String, Integer> priorities) {
         // Map<Class<?>, String[]> map
         ParameterizedTypeName mapTypeName = ParameterizedTypeName.get(
                 ClassName.get(Map.class),
@@ -207,39 +564,48 @@ public class RouteProcessor extends AbstractProcessor {
                 .addAnnotation(Override.class)
                 .addModifiers(Modifier.PUBLIC)
                 .addParameter(mapParameterSpec);
-        boolean hasInterceptor = false; // flag
+        // Map<String, String[]> map, keyed by binary names.
+        ParameterSpec namesParameterSpec = ParameterSpec.builder(ParameterizedTypeName.get(ClassName.get(Map.class),
+                ClassName.get(String.class), TypeName.get(String[].class)), "map").build();
+        MethodSpec.Builder methodHandleNames = MethodSpec.methodBuilder(METHOD_HANDLE_NAMES)
+                .addAnnotation(Override.class)
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter(namesParameterSpec);
+        List<CodeBlock> statements = new ArrayList<>();
+        List<CodeBlock> nameStatements = new ArrayList<>();
         for (TypeElement element : elements) {
             Route route = element.getAnnotation(Route.class);
-            String[] interceptors = route.interceptors();
-            if (interceptors.length > 1) {
-                hasInterceptor = true;
-                StringBuilder sb = new StringBuilder();
-                for (String interceptor : interceptors) {
-                    sb.append("\"").append(interceptor).append("\",");
-                }
-                methodHandle.addStatement("map.put($T.class, new String[]{$L})",
-                        ClassName.get(element), sb.substring(0, sb.lastIndexOf(",")));
-            } else if (interceptors.length == 1) {
-                hasInterceptor = true;
-                methodHandle.addStatement("map.put($T.class, new String[]{$S})",
-                        ClassName.get(element), interceptors[0]);
+            String[] interceptors = sortInterceptors(route.interceptors(), priorities);
+            if (interceptors.length == 0) {
+                continue;
+            }
+            CodeBlock.Builder names = CodeBlock.builder();
+            for (int i = 0; i < interceptors.length; i++) {
+                names.add(i == 0 ? "$S" : ", $S", interceptors[i]);
             }
+            statements.add(CodeBlock.of("map.put($T.class, new String[]{$L})", ClassName.get(element), names.build()));
+            nameStatements.add(CodeBlock.of("map.put($S, new String[]{$L})",
+                    processingEnv.getElementUtils().getBinaryName(element).toString(), names.build()));
         }
-        if (!hasInterceptor) { // if there are no interceptors, ignore.
+        if (statements.isEmpty()) { // if there are no interceptors, ignore.
             return;
         }
 
         TypeElement interfaceType = processingEnv.getElementUtils().getTypeElement(TARGET_INTERCEPTORS_FULL_NAME);
-        TypeSpec type = TypeSpec.classBuilder(capitalize(moduleName) + TARGET_INTERCEPTORS)
+        TypeElement namesType = processingEnv.getElementUtils().getTypeElement(TARGET_INTERCEPTOR_NAMES_FULL_NAME);
+        TypeSpec.Builder type = TypeSpec.classBuilder(capitalize(moduleName) + TARGET_INTERCEPTORS)
                 .addSuperinterface(ClassName.get(interfaceType))
+                .addSuperinterface(ClassName.get(namesType))
                 .addModifiers(Modifier.PUBLIC)
-                .addMethod(methodHandle.build())
-                .addJavadoc(CLASS_JAVA_DOC)
-                .build();
+                .addJavadoc(CLASS_JAVA_DOC);
+        CodeChunks.addStatements(type, methodHandle, METHOD_HANDLE, mapParameterSpec, statements);
+        CodeChunks.addStatements(type, methodHandleNames, METHOD_HANDLE_NAMES, namesParameterSpec, nameStatements);
         try {
-            JavaFile.builder(PACKAGE_NAME, type).build().writeTo(processingEnv.getFiler());
+            JavaFile.builder(PACKAGE_NAME, type.addMethod(methodHandle.build()).addMethod(methodHandleNames.build())
+                    .build()).build()
+                    .writeTo(processingEnv.getFiler());
         } catch (IOException e) {
-            e.printStackTrace();
+            mLogger.error("Exception occurred when generating class file: " + e);
         }
     }
 
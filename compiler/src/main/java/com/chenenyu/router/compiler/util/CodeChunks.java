@@ -0,0 +1,196 @@
+package com.chenenyu.router.compiler.util;
+
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterSpec;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+import javax.lang.model.element.Modifier;
+
+/**
+ * Keeps generated methods and constants bounded in size, however many routes a module has.
+ * <p>
+ * A method may have at most 64KB bytecode, a class at most 65535 constants, and ART doesn't compile
+ * huge methods, so long lists of statements are split into methods of {@link #METHOD_SIZE} statements,
+ * which are put into nested classes of {@link #CLASS_SIZE} methods. Big arrays are packed into string
+ * constants of at most {@link #CONSTANT_SIZE} bytes, and decoded by <code>com.chenenyu.router.util.PackedArrays</code>.
+ */
+public class CodeChunks {
+    public static final int METHOD_SIZE = 256;
+    public static final int CLASS_SIZE = 16;
+    // max bytes of a string constant in modified utf-8, javac also requires less than 0xffff chars.
+    public static final int CONSTANT_SIZE = 0xfffe;
+    private static final char SEPARATOR = '\0';
+
+    /**
+     * Add the statements to the method, or if there are too many, into nested classes of the type,
+     * which the method calls in order.
+     *
+     * @param name  name of the method, nested classes are named after it.
+     * @param param the only parameter of the method, passed to the nested classes.
+     */
+    public static void addStatements(TypeSpec.Builder type, MethodSpec.Builder method, String name,
+                                     ParameterSpec param, List<CodeBlock> statements) {
+        if (statements.size() <= METHOD_SIZE) {
+            for (CodeBlock statement : statements) {
+                method.addStatement("$L", statement);
+            }
+            return;
+        }
+        List<List<CodeBlock>> parts = split(statements, METHOD_SIZE * CLASS_SIZE);
+        for (int i = 0; i < parts.size(); i++) {
+            TypeSpec.Builder part = TypeSpec.classBuilder(capitalize(name) + i)
+                    .addModifiers(Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL);
+            MethodSpec.Builder partMethod = MethodSpec.methodBuilder(name)
+                    .addModifiers(Modifier.STATIC)
+                    .addParameter(param);
+            List<List<CodeBlock>> chunks = split(parts.get(i), METHOD_SIZE);
+            for (int j = 0; j < chunks.size(); j++) {
+                MethodSpec.Builder chunk = MethodSpec.methodBuilder(name + j)
+                        .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+                        .addParameter(param);
+                for (CodeBlock statement : chunks.get(j)) {
+                    chunk.addStatement("$L", statement);
+                }
+                part.addMethod(chunk.build());
+                partMethod.addStatement("$L($N)", name + j, param);
+            }
+            part.addMethod(partMethod.build());
+            type.addType(part.build());
+            method.addStatement("$L$L.$L($N)", capitalize(name), i, name, param);
+        }
+    }
+
+    /**
+     * Add a switch over the parameter to the method, which returns the value of the matched case,
+     * or the default value. If there are too many cases, they're split into nested classes by ranges
+     * of the keys, and the method calls the one of the range.
+     *
+     * @param name         name of the method, nested classes are named after it.
+     * @param param        the only parameter of the method, a String.
+     * @param returns      return type of the method.
+     * @param cases        key -> returned value, sorted by keys.
+     * @param defaultValue returned if no key matches.
+     */
+    public static void addSwitch(TypeSpec.Builder type, MethodSpec.Builder method, String name, ParameterSpec param,
+                                 TypeName returns, SortedMap<String, CodeBlock> cases, CodeBlock defaultValue) {
+        List<Map.Entry<String, CodeBlock>> entries = new ArrayList<>(cases.entrySet());
+        if (entries.size() <= METHOD_SIZE) {
+            addCases(method, param, entries, defaultValue);
+            return;
+        }
+        List<List<Map.Entry<String, CodeBlock>>> chunks = split(entries, METHOD_SIZE);
+        for (int i = 0; i < chunks.size(); i++) {
+            MethodSpec.Builder chunk = MethodSpec.methodBuilder(name)
+                    .addModifiers(Modifier.STATIC)
+                    .addParameter(param)
+                    .returns(returns);
+            addCases(chunk, param, chunks.get(i), defaultValue);
+            type.addType(TypeSpec.classBuilder(capitalize(name) + i)
+                    .addModifiers(Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+                    .addMethod(chunk.build())
+                    .build());
+        }
+        // ranges are checked from the last one, the first one takes the rest.
+        for (int i = chunks.size() - 1; i > 0; i--) {
+            method.beginControlFlow("if ($N.compareTo($S) >= 0)", param, chunks.get(i).get(0).getKey())
+                    .addStatement("return $L$L.$L($N)", capitalize(name), i, name, param)
+                    .endControlFlow();
+        }
+        method.addStatement("return $L$L.$L($N)", capitalize(name), 0, name, param);
+    }
+
+    private static void addCases(MethodSpec.Builder method, ParameterSpec param,
+                                 List<Map.Entry<String, CodeBlock>> entries, CodeBlock defaultValue) {
+        method.beginControlFlow("switch ($N)", param);
+        for (Map.Entry<String, CodeBlock> entry : entries) {
+            method.addStatement("case $S: return $L", entry.getKey(), entry.getValue());
+        }
+        method.addStatement("default: return $L", defaultValue)
+                .endControlFlow();
+    }
+
+    /**
+     * @return Code that creates the String[] at runtime, from packed constants.
+     */
+    public static CodeBlock packStrings(List<String> strings) {
+        StringBuilder sb = new StringBuilder();
+        for (String str : strings) {
+            if (str.indexOf(SEPARATOR) >= 0) {
+                throw new RuntimeException("Can't pack string with \\0: " + str);
+            }
+            sb.append(str).append(SEPARATOR);
+        }
+        return pack("strings", sb);
+    }
+
+    /**
+     * @return Code that creates the int[] at runtime, from packed constants.
+     */
+    public static CodeBlock packInts(int[] ints) {
+        StringBuilder sb = new StringBuilder();
+        for (int value : ints) {
+            sb.append(value).append(',');
+        }
+        return pack("ints", sb);
+    }
+
+    /**
+     * @return Code that creates the String at runtime, from constants.
+     */
+    public static CodeBlock packString(String str) {
+        return pack("join", str);
+    }
+
+    private static CodeBlock pack(String method, CharSequence packed) {
+        CodeBlock.Builder code = CodeBlock.builder().add("$T.$L(", ClassName.bestGuess(Consts.PACKED_ARRAYS_FULL_NAME), method);
+        int start = 0;
+        int bytes = 0;
+        for (int i = 0, length = packed.length(); i < length; i++) {
+            char c = packed.charAt(i);
+            // a surrogate pair mustn't be split, or it can't be written into the source.
+            int size = Character.isHighSurrogate(c) && i + 1 < length ? 6 : utf8Size(c);
+            if (bytes + size > CONSTANT_SIZE) {
+                code.add(start == 0 ? "$S" : ",\n$S", packed.subSequence(start, i).toString());
+                start = i;
+                bytes = 0;
+            }
+            bytes += size;
+            if (size == 6) {
+                i++;
+            }
+        }
+        code.add(start == 0 ? "$S" : ",\n$S", packed.subSequence(start, packed.length()).toString());
+        return code.add(")").build();
+    }
+
+    /**
+     * Size of the char in the modified utf-8 of class files.
+     */
+    private static int utf8Size(char c) {
+        if (c != 0 && c < 0x80) {
+            return 1;
+        }
+        return c < 0x800 ? 2 : 3;
+    }
+
+    private static <T> List<List<T>> split(List<T> list, int size) {
+        List<List<T>> chunks = new ArrayList<>();
+        for (int i = 0; i < list.size(); i += size) {
+            chunks.add(list.subList(i, Math.min(i + size, list.size())));
+        }
+        return chunks;
+    }
+
+    private static String capitalize(CharSequence self) {
+        return self.length() == 0 ? "" :
+                "" + Character.toUpperCase(self.charAt(0)) + self.subSequence(1, self.length());
+    }
+}
@@ -6,6 +6,8 @@ package com.chenenyu.router.compiler.util;
  */
 public class Consts {
     public static final String OPTION_MODULE_NAME = "moduleName";
+    public static final String OPTION_MODULE_REGISTRY = "moduleRegistry";
+    public static final String OPTION_ROUTE_ASSET_DIR = "routeAssetDir";
     public static final String CLASS_JAVA_DOC = "Generated by Router. Do not edit it!\n";
 
     public static final String ACTIVITY_FULL_NAME = "android.app.Activity";
@@ -19,18 +21,53 @@ public class Consts {
     public static final String PACKAGE_NAME = "com.chenenyu.router";
 
     public static final String METHOD_HANDLE = "handle";
+    public static final String METHOD_HANDLE_TARGETS = "handleTargets";
+    public static final String METHOD_HANDLE_NAMES = "handleNames";
     public static final String METHOD_INJECT = "inject";
+    public static final String METHOD_CREATE = "create";
+    public static final String METHOD_PRIORITY = "priority";
+    public static final String METHOD_GET_GROUPS = "getGroups";
+    public static final String METHOD_GET_GROUP = "getGroup";
+    public static final String METHOD_INDEX_OF = "indexOf";
+    public static final String METHOD_GET_TARGET = "getTarget";
+    public static final String METHOD_GET_ASSET_NAME = "getAssetName";
+    public static final String METHOD_GET_FINGERPRINT = "getFingerprint";
 
     public static final String ROUTE_TABLE = "RouteTable";
     public static final String ROUTE_TABLE_FULL_NAME = PACKAGE_NAME + ".template." + ROUTE_TABLE;
 
+    public static final String ROUTE_TARGET_FULL_NAME = PACKAGE_NAME + ".RouteTarget";
+    public static final String ROUTE_TARGET_TABLE = "RouteTargetTable";
+    public static final String ROUTE_TARGET_TABLE_FULL_NAME = PACKAGE_NAME + ".template." + ROUTE_TARGET_TABLE;
+
+    public static final String ROUTE_HASH_TABLE = "RouteHashTable";
+    public static final String ROUTE_HASH_TABLE_FULL_NAME = PACKAGE_NAME + ".template." + ROUTE_HASH_TABLE;
+    public static final String PERFECT_HASH_FULL_NAME = PACKAGE_NAME + ".util.PerfectHash";
+    public static final String PACKED_ARRAYS_FULL_NAME = PACKAGE_NAME + ".util.PackedArrays";
+    public static final String ROUTE_INDEX_ASSET = "RouteIndexAsset";
+    public static final String ROUTE_INDEX_ASSET_FULL_NAME = PACKAGE_NAME + ".template." + ROUTE_INDEX_ASSET;
+    public static final String ROUTE_ASSET_DIR = "router";
+    public static final String ROUTE_ASSET_SUFFIX = ".rtx";
+
+    public static final String ROUTE_GROUP = "RouteGroup";
+    public static final String ROUTE_GROUPS = "RouteGroups";
+    public static final String ROUTE_GROUPS_FULL_NAME = PACKAGE_NAME + ".template." + ROUTE_GROUPS;
+
     public static final String INTERCEPTOR_FULL_NAME = PACKAGE_NAME + ".RouteInterceptor";
 
     public static final String INTERCEPTOR_TABLE = "InterceptorTable";
     public static final String INTERCEPTOR_TABLE_FULL_NAME = PACKAGE_NAME + ".template." + INTERCEPTOR_TABLE;
 
+    public static final String INTERCEPTOR_FACTORY = "InterceptorFactory";
+    public static final String INTERCEPTOR_FACTORY_FULL_NAME = PACKAGE_NAME + ".template." + INTERCEPTOR_FACTORY;
+
     public static final String TARGET_INTERCEPTORS = "TargetInterceptors";
     public static final String TARGET_INTERCEPTORS_FULL_NAME = PACKAGE_NAME + ".template." + TARGET_INTERCEPTORS;
+    public static final String TARGET_INTERCEPTOR_NAMES = "TargetInterceptorNames";
+    public static final String TARGET_INTERCEPTOR_NAMES_FULL_NAME = PACKAGE_NAME + ".template." + TARGET_INTERCEPTOR_NAMES;
+
+    public static final String MODULE_REGISTRY = "ModuleRegistry";
+    public static final String MODULE_REGISTRY_FULL_NAME = PACKAGE_NAME + ".template." + MODULE_REGISTRY;
 
     public static final String PARAM_INJECTOR = "ParamInjector";
     public static final String PARAM_INJECTOR_FULL_NAME = PACKAGE_NAME + ".template." + PARAM_INJECTOR;
@@ -0,0 +1,142 @@
+package com.chenenyu.router.compiler.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Builds minimal perfect hash tables by hash and displace. The hash and the lookup must be the same
+ * as <code>com.chenenyu.router.util.PerfectHash</code> at runtime.
+ */
+public class PerfectHash {
+    private static final int FNV_OFFSET = 0x811c9dc5;
+    private static final int FNV_PRIME = 0x01000193;
+
+    /**
+     * Seeds of buckets.
+     */
+    public final int[] seeds;
+    /**
+     * Keys by slot.
+     */
+    public final String[] keys;
+
+    private PerfectHash(int[] seeds, String[] keys) {
+        this.seeds = seeds;
+        this.keys = keys;
+    }
+
+    public static int hash(String key, int seed) {
+        int h = seed == 0 ? FNV_OFFSET : seed;
+        for (int i = 0, length = key.length(); i < length; i++) {
+            h = (h ^ key.charAt(i)) * FNV_PRIME;
+        }
+        // mix the high bits into the low bits, which are taken by the modulo.
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        return h & 0x7fffffff;
+    }
+
+    /**
+     * @param keys distinct keys.
+     */
+    public static PerfectHash build(List<String> keys) {
+        final int n = keys.size();
+        int[] seeds = new int[n];
+        String[] slots = new String[n];
+        if (n == 0) {
+            return new PerfectHash(seeds, slots);
+        }
+        // bucket -> keys
+        List<List<String>> buckets = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            buckets.add(new ArrayList<String>(1));
+        }
+        for (String key : keys) {
+            buckets.get(hash(key, 0) % n).add(key);
+        }
+        // place the largest buckets first, while most slots are free.
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        final List<List<String>> finalBuckets = buckets;
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer o1, Integer o2) {
+                int diff = finalBuckets.get(o2).size() - finalBuckets.get(o1).size();
+                return diff != 0 ? diff : o1 - o2;
+            }
+        });
+
+        int next = 0;
+        for (; next < n; next++) {
+            List<String> bucket = buckets.get(order[next]);
+            if (bucket.size() <= 1) {
+                break;
+            }
+            int[] placed = new int[bucket.size()];
+            for (int seed = 1; ; seed++) {
+                if (seed == Integer.MAX_VALUE) {
+                    throw new IllegalStateException("Can't build perfect hash for: " + bucket);
+                }
+                if (place(bucket, seed, slots, placed)) {
+                    seeds[order[next]] = seed;
+                    break;
+                }
+            }
+        }
+        // buckets of one key take the free slots directly.
+        int free = 0;
+        for (; next < n; next++) {
+            List<String> bucket = buckets.get(order[next]);
+            if (bucket.isEmpty()) {
+                break;
+            }
+            while (slots[free] != null) {
+                free++;
+            }
+            slots[free] = bucket.get(0);
+            seeds[order[next]] = -free - 1;
+        }
+        return new PerfectHash(seeds, slots);
+    }
+
+    /**
+     * Put the keys of the bucket into the slots if they all hash to distinct free slots by the seed.
+     */
+    private static boolean place(List<String> bucket, int seed, String[] slots, int[] placed) {
+        int n = slots.length;
+        for (int i = 0; i < bucket.size(); i++) {
+            int slot = hash(bucket.get(i), seed) % n;
+            if (slots[slot] != null) {
+                return false;
+            }
+            for (int j = 0; j < i; j++) {
+                if (placed[j] == slot) {
+                    return false;
+                }
+            }
+            placed[i] = slot;
+        }
+        for (int i = 0; i < bucket.size(); i++) {
+            slots[placed[i]] = bucket.get(i);
+        }
+        return true;
+    }
+
+    /**
+     * @return Slot of the key, or -1 if it's not in the table.
+     */
+    public int indexOf(String key) {
+        int n = keys.length;
+        if (n == 0) {
+            return -1;
+        }
+        int seed = seeds[hash(key, 0) % n];
+        int slot = seed < 0 ? -seed - 1 : hash(key, seed) % n;
+        return key.equals(keys[slot]) ? slot : -1;
+    }
+}
@@ -0,0 +1,168 @@
+package com.chenenyu.router.compiler.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the routes of a module into a binary index, which the router memory-maps from assets and
+ * looks up without loading anything into heap. It must be read by <code>com.chenenyu.router.MappedRouteTable</code>.
+ * <p>
+ * Layout, big-endian:
+ * <pre>
+ * header:  int magic, int version, long fingerprint, int count
+ * seeds:   int[count], seeds of the perfect hash buckets
+ * entries: {int path, int target, int interceptors, int type}[count], by slot
+ * pool:    strings as {u2 length, utf-8 bytes}, interceptor lists as {u2 count, int[count] strings}
+ * </pre>
+ * Offsets are from the start of the file, -1 if there are no interceptors. The fingerprint is
+ * the FNV-1a 64 of everything after the header, the generated code keeps the same value.
+ */
+public class RouteIndexWriter {
+    public static final int MAGIC = 0x52545831; // RTX1
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = 20;
+    public static final int ENTRY_SIZE = 16;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final List<String> paths = new ArrayList<>();
+    private final Map<String, String> targets = new HashMap<>();
+    private final Map<String, Character> types = new HashMap<>();
+    private final Map<String, String[]> interceptors = new HashMap<>();
+
+    /**
+     * @param path         route path
+     * @param target       binary name of the target
+     * @param type         'a' for activity, 's' for support fragment, 'f' for fragment
+     * @param interceptors interceptors of the target in order
+     */
+    public void add(String path, String target, char type, String[] interceptors) {
+        paths.add(path);
+        targets.put(path, target);
+        types.put(path, type);
+        this.interceptors.put(path, interceptors);
+    }
+
+    /**
+     * @return The index file.
+     */
+    public byte[] build() {
+        PerfectHash hash = PerfectHash.build(paths);
+        int n = hash.keys.length;
+        int poolStart = HEADER_SIZE + n * 4 + n * ENTRY_SIZE;
+
+        ByteArrayOutputStream poolBytes = new ByteArrayOutputStream();
+        DataOutputStream pool = new DataOutputStream(poolBytes);
+        // string -> offset, strings are shared by entries.
+        Map<String, Integer> strings = new HashMap<>();
+        int[][] entries = new int[n][];
+        try {
+            for (int i = 0; i < n; i++) {
+                String path = hash.keys[i];
+                int pathOffset = writeString(pool, poolStart, strings, path);
+                int targetOffset = writeString(pool, poolStart, strings, targets.get(path));
+                String[] names = interceptors.get(path);
+                int interceptorsOffset = -1;
+                if (names.length > 0) {
+                    int[] nameOffsets = new int[names.length];
+                    for (int j = 0; j < names.length; j++) {
+                        nameOffsets[j] = writeString(pool, poolStart, strings, names[j]);
+                    }
+                    interceptorsOffset = poolStart + pool.size();
+                    pool.writeShort(names.length);
+                    for (int offset : nameOffsets) {
+                        pool.writeInt(offset);
+                    }
+                }
+                entries[i] = new int[]{pathOffset, targetOffset, interceptorsOffset, types.get(path)};
+            }
+
+            ByteArrayOutputStream bodyBytes = new ByteArrayOutputStream(poolStart + pool.size());
+            DataOutputStream body = new DataOutputStream(bodyBytes);
+            for (int seed : hash.seeds) {
+                body.writeInt(seed);
+            }
+            for (int[] entry : entries) {
+                for (int value : entry) {
+                    body.writeInt(value);
+                }
+            }
+            pool.flush();
+            poolBytes.writeTo(body);
+            body.flush();
+            byte[] bodyArray = bodyBytes.toByteArray();
+
+            ByteArrayOutputStream file = new ByteArrayOutputStream(HEADER_SIZE + bodyArray.length);
+            DataOutputStream out = new DataOutputStream(file);
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(fingerprint(bodyArray));
+            out.writeInt(n);
+            out.write(bodyArray);
+            out.flush();
+            return file.toByteArray();
+        } catch (IOException e) {
+            // never happens in memory.
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static int writeString(DataOutputStream pool, int poolStart, Map<String, Integer> strings, String str)
+            throws IOException {
+        Integer offset = strings.get(str);
+        if (offset == null) {
+            byte[] bytes = str.getBytes(UTF_8);
+            if (bytes.length > 0xffff) {
+                throw new RuntimeException("Too long to write into route index: " + str);
+            }
+            offset = poolStart + pool.size();
+            pool.writeShort(bytes.length);
+            pool.write(bytes);
+            strings.put(str, offset);
+        }
+        return offset;
+    }
+
+    /**
+     * FNV-1a 64.
+     */
+    public static long fingerprint(byte[] bytes) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : bytes) {
+            h = (h ^ (b & 0xff)) * 0x100000001b3L;
+        }
+        return h;
+    }
+
+    /**
+     * @return The fingerprint of a built index.
+     */
+    public static long fingerprintOf(byte[] index) {
+        long h = 0;
+        for (int i = 8; i < 16; i++) {
+            h = (h << 8) | (index[i] & 0xff);
+        }
+        return h;
+    }
+
+    public static void write(byte[] index, File file) throws IOException {
+        File dir = file.getParentFile();
+        if (dir != null && !dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Can't create directory: " + dir);
+        }
+        OutputStream out = new FileOutputStream(file);
+        try {
+            out.write(index);
+        } finally {
+            out.close();
+        }
+    }
+}
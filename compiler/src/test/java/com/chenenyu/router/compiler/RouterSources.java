@@ -0,0 +1,25 @@
+package com.chenenyu.router.compiler;
+
+import java.io.File;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Sources of the router that tests compile with generated code, set by compiler/build.gradle.
+ */
+public class RouterSources {
+    private RouterSources() {
+    }
+
+    /**
+     * @param name path of the source, relative to package <code>com.chenenyu.router</code>.
+     */
+    public static File get(String name) {
+        String path = System.getProperty("router.sources");
+        assertNotNull("System property router.sources isn't set.", path);
+        File dir = new File(path, "com/chenenyu/router");
+        assertTrue("Router sources not found: " + dir, dir.isDirectory());
+        return new File(dir, name);
+    }
+}
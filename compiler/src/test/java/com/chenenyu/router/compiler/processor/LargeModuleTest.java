@@ -0,0 +1,236 @@
+package com.chenenyu.router.compiler.processor;
+
+import com.chenenyu.router.compiler.RouterSources;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Generates the tables of a module with 50k routes, and checks that they compile, since javac fails on
+ * methods over 64KB or classes over 65535 constants, and that they have all routes.
+ */
+public class LargeModuleTest {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final int TARGETS = 500;
+    private static final int PATHS_PER_TARGET = 100;
+    private static final int ROUTES = TARGETS * PATHS_PER_TARGET;
+    private static final int HOSTS = 2000;
+    private static final int INTERCEPTORS = 300;
+    // templates and utils of the router that the generated code uses, they don't depend on android.
+    private static final String[] ROUTER_SOURCES = {
+            "template/RouteTable.java",
+            "template/RouteGroups.java",
+            "template/RouteTargetTable.java",
+            "template/RouteHashTable.java",
+            "template/TargetInterceptors.java",
+            "template/TargetInterceptorNames.java",
+            "template/InterceptorTable.java",
+            "template/InterceptorFactory.java",
+            "util/PerfectHash.java",
+            "util/PackedArrays.java"};
+
+    private Path dir;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("router-large-module");
+    }
+
+    @After
+    public void tearDown() {
+        delete(dir.toFile());
+    }
+
+    @Test
+    public void generate50kRoutes() throws Exception {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        assertNotNull("Tests must run on a JDK.", compiler);
+
+        List<File> sources = new ArrayList<>();
+        for (String source : ROUTER_SOURCES) {
+            sources.add(RouterSources.get(source));
+        }
+        sources.add(write("android/app/Activity.java", "package android.app;\npublic class Activity {}\n"));
+        sources.add(write("android/app/Fragment.java", "package android.app;\npublic class Fragment {}\n"));
+        sources.add(write("android/support/v4/app/Fragment.java",
+                "package android.support.v4.app;\npublic class Fragment {}\n"));
+        sources.add(write("com/chenenyu/router/RouteInterceptor.java",
+                "package com.chenenyu.router;\npublic interface RouteInterceptor {}\n"));
+        sources.add(write("com/chenenyu/router/RouteTarget.java", "package com.chenenyu.router;\n"
+                + "public final class RouteTarget {\n"
+                + "    public final String name;\n"
+                + "    public final char type;\n"
+                + "    private RouteTarget(String name, char type) { this.name = name; this.type = type; }\n"
+                + "    public static RouteTarget activity(String name) { return new RouteTarget(name, 'a'); }\n"
+                + "    public static RouteTarget fragment(String name) { return new RouteTarget(name, 'f'); }\n"
+                + "    public static RouteTarget supportFragment(String name) { return new RouteTarget(name, 's'); }\n"
+                + "}\n"));
+        for (int i = 0; i < INTERCEPTORS; i++) {
+            sources.add(write("test/Interceptor" + i + ".java", "package test;\n"
+                    + "@com.chenenyu.router.annotation.Interceptor(value = \"i" + i + "\", priority = " + i + ")\n"
+                    + "public class Interceptor" + i + " implements com.chenenyu.router.RouteInterceptor {}\n"));
+        }
+        for (int i = 0; i < TARGETS; i++) {
+            StringBuilder paths = new StringBuilder();
+            for (int j = 0; j < PATHS_PER_TARGET; j++) {
+                paths.append(j == 0 ? "" : ", ").append('"').append(path(i * PATHS_PER_TARGET + j)).append('"');
+            }
+            sources.add(write("test/Target" + i + ".java", "package test;\n"
+                    + "@com.chenenyu.router.annotation.Route(value = {" + paths + "}, interceptors = {\"i"
+                    + (i % INTERCEPTORS) + "\", \"i" + ((i + 1) % INTERCEPTORS) + "\"})\n"
+                    + "public class Target" + i + " extends " + (i % 2 == 0 ? "android.app.Activity"
+                    : "android.support.v4.app.Fragment") + " {}\n"));
+        }
+
+        File classes = dir.resolve("classes").toFile();
+        File generated = dir.resolve("generated").toFile();
+        assertTrue(classes.mkdirs() && generated.mkdirs());
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, Locale.ROOT, UTF_8);
+        JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics,
+                Arrays.asList("-AmoduleName=large", "-nowarn", "-encoding", "UTF-8",
+                        "-classpath", System.getProperty("java.class.path"),
+                        "-d", classes.getPath(), "-s", generated.getPath()),
+                null, fileManager.getJavaFileObjectsFromFiles(sources));
+        task.setProcessors(Arrays.asList(new RouteProcessor(), new InterceptorProcessor()));
+        boolean success = task.call();
+        fileManager.close();
+        StringBuilder errors = new StringBuilder();
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+            if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+                errors.append(diagnostic).append('\n');
+            }
+        }
+        assertTrue(errors.toString(), success);
+
+        URLClassLoader loader = new URLClassLoader(new URL[]{classes.toURI().toURL()}, getClass().getClassLoader());
+        try {
+            checkRouteTable(loader);
+            checkInterceptors(loader);
+        } finally {
+            loader.close();
+        }
+    }
+
+    private void checkRouteTable(ClassLoader loader) throws Exception {
+        Object table = loader.loadClass("com.chenenyu.router.LargeRouteTable").newInstance();
+        Map<String, Class<?>> routes = new HashMap<>();
+        invoke(table, "handle", routes);
+        assertEquals(ROUTES, routes.size());
+        Map<String, Object> targets = new HashMap<>();
+        invoke(table, "handleTargets", targets);
+        assertEquals(ROUTES, targets.size());
+
+        String[] groups = (String[]) invoke(table, "getGroups");
+        assertEquals(HOSTS + 1, groups.length);
+        int grouped = 0;
+        for (String group : groups) {
+            Object groupTable = invoke(table, "getGroup", group);
+            assertNotNull(group, groupTable);
+            Map<String, Class<?>> groupRoutes = new HashMap<>();
+            invoke(groupTable, "handle", groupRoutes);
+            grouped += groupRoutes.size();
+        }
+        assertEquals(ROUTES, grouped);
+        assertNull(invoke(table, "getGroup", "app://nope"));
+
+        for (int i = 0; i < ROUTES; i++) {
+            String path = path(i);
+            String target = "test.Target" + i / PATHS_PER_TARGET;
+            assertEquals(target, routes.get(path).getName());
+            int slot = (Integer) invoke(table, "indexOf", path);
+            assertTrue(path, slot >= 0);
+            Object routeTarget = invoke(table, "getTarget", slot);
+            assertEquals(target, routeTarget.getClass().getField("name").get(routeTarget));
+            assertEquals(i / PATHS_PER_TARGET % 2 == 0 ? 'a' : 's',
+                    routeTarget.getClass().getField("type").get(routeTarget));
+        }
+        assertEquals(-1, invoke(table, "indexOf", "big/nope"));
+    }
+
+    private void checkInterceptors(ClassLoader loader) throws Exception {
+        Object targetTable = loader.loadClass("com.chenenyu.router.LargeTargetInterceptors").newInstance();
+        Map<Class<?>, String[]> targetInterceptors = new HashMap<>();
+        invoke(targetTable, "handle", targetInterceptors);
+        assertEquals(TARGETS, targetInterceptors.size());
+        // sorted by priority
+        assertEquals(Arrays.asList("i1", "i0"),
+                Arrays.asList(targetInterceptors.get(loader.loadClass("test.Target0"))));
+        Map<String, String[]> targetInterceptorNames = new HashMap<>();
+        invoke(targetTable, "handleNames", targetInterceptorNames);
+        assertEquals(TARGETS, targetInterceptorNames.size());
+        assertEquals(Arrays.asList("i1", "i0"), Arrays.asList(targetInterceptorNames.get("test.Target0")));
+
+        Map<String, Class<?>> interceptors = new HashMap<>();
+        invoke(loader.loadClass("com.chenenyu.router.LargeInterceptorTable").newInstance(), "handle", interceptors);
+        assertEquals(INTERCEPTORS, interceptors.size());
+        Object factory = loader.loadClass("com.chenenyu.router.LargeInterceptorFactory").newInstance();
+        for (int i = 0; i < INTERCEPTORS; i++) {
+            assertEquals("test.Interceptor" + i, invoke(factory, "create", "i" + i).getClass().getName());
+            assertEquals(i, invoke(factory, "priority", "i" + i));
+        }
+        assertNull(invoke(factory, "create", "nope"));
+        assertEquals(0, invoke(factory, "priority", "nope"));
+    }
+
+    /**
+     * Half of the routes are in one group, the others are spread in many groups.
+     */
+    private static String path(int i) {
+        return i < ROUTES / 2 ? "big/" + i : "app://host" + i % HOSTS + "/p" + i;
+    }
+
+    private static Object invoke(Object target, String name, Object... args) throws Exception {
+        for (Method method : target.getClass().getMethods()) {
+            if (method.getName().equals(name) && method.getParameterTypes().length == args.length) {
+                return method.invoke(target, args);
+            }
+        }
+        throw new NoSuchMethodException(name);
+    }
+
+    private File write(String name, String content) throws IOException {
+        Path file = dir.resolve("src").resolve(name);
+        Files.createDirectories(file.getParent());
+        Files.write(file, content.getBytes(UTF_8));
+        return file.toFile();
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
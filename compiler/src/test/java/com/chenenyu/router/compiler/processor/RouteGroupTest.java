@@ -0,0 +1,108 @@
+package com.chenenyu.router.compiler.processor;
+
+import com.chenenyu.router.compiler.RouterSources;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * The groups that routes are generated into must be the groups the router looks them up by, or a route
+ * isn't found until all groups are loaded. Compares {@link RouteProcessor#routeGroup(String)} with the
+ * router's <code>RouteGrouping</code>, which is compiled from the router sources.
+ */
+public class RouteGroupTest {
+    private static final String[] ROUTES = {
+            // scheme only
+            "app:", "app:user", "mailto:someone@example.com", "app:user/{id}",
+            // scheme and authority
+            "app://user", "app://user/", "app://user/profile", "app://user?tab=1", "app://user#top",
+            "app://user:8080/profile", "https://www.example.com/a/b", "app:///no/authority",
+            // variables
+            "app://user/{id}", "app://user/{id}/profile", "app://{host}/page", "{id}", "{id}/profile",
+            "user/{id}/post/{postId}",
+            // relative and root paths
+            "", "/", "//", "/user/profile", "user", "user/", "user/profile", "user?tab=1", "user#top",
+            "中文/路径", "app://日本/ページ"};
+
+    private Path dir;
+    private URLClassLoader loader;
+    private Method groupOf;
+
+    @Before
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("router-group");
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        assertNotNull("Tests must run on a JDK.", compiler);
+        File source = RouterSources.get("util/RouteGrouping.java");
+        int result = compiler.run(null, null, null, "-proc:none", "-nowarn", "-encoding", "UTF-8",
+                "-d", dir.toString(), source.getPath());
+        assertEquals("Failed to compile " + source, 0, result);
+        loader = new URLClassLoader(new URL[]{dir.toUri().toURL()}, getClass().getClassLoader());
+        groupOf = loader.loadClass("com.chenenyu.router.util.RouteGrouping").getMethod("groupOf", String.class);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        if (loader != null) {
+            loader.close();
+        }
+        delete(dir.toFile());
+    }
+
+    @Test
+    public void groupsMatchRuntime() throws Exception {
+        for (String route : ROUTES) {
+            assertEquals(route, RouteProcessor.routeGroup(route), groupOf.invoke(null, route));
+        }
+    }
+
+    @Test
+    public void groupsOfRoutes() {
+        assertEquals(Arrays.asList("app:", "app:", "app://user", "app://user", "app://user:8080", "app:",
+                "app://{host}", "{id}", "", "", "user", "user"),
+                Arrays.asList(RouteProcessor.routeGroup("app:user"), RouteProcessor.routeGroup("app:"),
+                        RouteProcessor.routeGroup("app://user?tab=1"),
+                        RouteProcessor.routeGroup("app://user/{id}/profile"),
+                        RouteProcessor.routeGroup("app://user:8080/profile"),
+                        RouteProcessor.routeGroup("app:///no/authority"),
+                        RouteProcessor.routeGroup("app://{host}/page"),
+                        RouteProcessor.routeGroup("{id}/profile"),
+                        RouteProcessor.routeGroup("/user/profile"), RouteProcessor.routeGroup(""),
+                        RouteProcessor.routeGroup("user"), RouteProcessor.routeGroup("user/{id}")));
+    }
+
+    @Test
+    public void escapedGroupNeedsAllGroups() throws Exception {
+        // escaped uris may equal routes of any group, the router loads all of them.
+        assertNull(groupOf.invoke(null, "app://us%65r/profile"));
+        assertNull(groupOf.invoke(null, "us%65r/profile"));
+        assertEquals("app://user", groupOf.invoke(null, "app://user/pro%66ile"));
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
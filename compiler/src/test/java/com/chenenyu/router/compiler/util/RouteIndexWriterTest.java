@@ -0,0 +1,232 @@
+package com.chenenyu.router.compiler.util;
+
+import com.chenenyu.router.compiler.RouterSources;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Writes route indexes and reads them back by the router's <code>MappedRouteTable</code>, which is
+ * compiled against stubs of the android classes it uses.
+ */
+public class RouteIndexWriterTest {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final String[] PATHS = {
+            "app://host/page",
+            "app://user/{id}/profile",
+            "relative/path",
+            "中文/路径",
+            "app://héllo/ü",
+            "app://emoji/😀",
+            "app://日本/ページ?q=é"};
+    private static final String[] MISSING = {
+            "app://host/pag",
+            "app://host/page/",
+            "中文/路",
+            "中文/路径/",
+            "中文/路徑",
+            "app://hello/ü",
+            "app://héllo/u",
+            "app://emoji/😁",
+            "app://emoji/\ud83d",
+            "app://emoji/\ude00",
+            ""};
+
+    private Path dir;
+    private URLClassLoader loader;
+    private Method check;
+    private Constructor<?> constructor;
+
+    @Before
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("router-index");
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        assertNotNull("Tests must run on a JDK.", compiler);
+
+        List<File> sources = new ArrayList<>();
+        sources.add(RouterSources.get("MappedRouteTable.java"));
+        sources.add(RouterSources.get("template/RouteHashTable.java"));
+        sources.add(RouterSources.get("util/PerfectHash.java"));
+        sources.add(write("android/content/Context.java", "package android.content;\n"
+                + "public class Context {\n"
+                + "    public android.content.res.AssetManager getAssets() { return null; }\n"
+                + "}\n"));
+        sources.add(write("android/content/res/AssetManager.java", "package android.content.res;\n"
+                + "public class AssetManager {\n"
+                + "    public AssetFileDescriptor openFd(String name) throws java.io.IOException { return null; }\n"
+                + "}\n"));
+        sources.add(write("android/content/res/AssetFileDescriptor.java", "package android.content.res;\n"
+                + "public class AssetFileDescriptor {\n"
+                + "    public java.io.FileDescriptor getFileDescriptor() { return null; }\n"
+                + "    public long getStartOffset() { return 0; }\n"
+                + "    public long getLength() { return 0; }\n"
+                + "    public void close() throws java.io.IOException {}\n"
+                + "}\n"));
+        sources.add(write("android/support/annotation/Nullable.java",
+                "package android.support.annotation;\npublic @interface Nullable {}\n"));
+        sources.add(write("com/chenenyu/router/util/RLog.java", "package com.chenenyu.router.util;\n"
+                + "public class RLog {\n"
+                + "    public static void w(String msg) {}\n"
+                + "}\n"));
+        sources.add(write("com/chenenyu/router/RouteTarget.java", "package com.chenenyu.router;\n"
+                + "public final class RouteTarget {\n"
+                + "    public final String name;\n"
+                + "    public final char type;\n"
+                + "    private RouteTarget(String name, char type) { this.name = name; this.type = type; }\n"
+                + "    public static RouteTarget activity(String name) { return new RouteTarget(name, 'a'); }\n"
+                + "    public static RouteTarget fragment(String name) { return new RouteTarget(name, 'f'); }\n"
+                + "    public static RouteTarget supportFragment(String name) { return new RouteTarget(name, 's'); }\n"
+                + "}\n"));
+
+        File classes = dir.resolve("classes").toFile();
+        assertTrue(classes.mkdirs());
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, Locale.ROOT, UTF_8);
+        boolean success = compiler.getTask(null, fileManager, diagnostics,
+                Arrays.asList("-proc:none", "-nowarn", "-encoding", "UTF-8", "-d", classes.getPath()),
+                null, fileManager.getJavaFileObjectsFromFiles(sources)).call();
+        fileManager.close();
+        StringBuilder errors = new StringBuilder();
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+            if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+                errors.append(diagnostic).append('\n');
+            }
+        }
+        assertTrue(errors.toString(), success);
+
+        loader = new URLClassLoader(new URL[]{classes.toURI().toURL()}, getClass().getClassLoader());
+        Class<?> table = loader.loadClass("com.chenenyu.router.MappedRouteTable");
+        check = table.getDeclaredMethod("check", ByteBuffer.class, long.class);
+        check.setAccessible(true);
+        constructor = table.getDeclaredConstructor(ByteBuffer.class);
+        constructor.setAccessible(true);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        if (loader != null) {
+            loader.close();
+        }
+        delete(dir.toFile());
+    }
+
+    @Test
+    public void roundTrip() throws Exception {
+        RouteIndexWriter writer = new RouteIndexWriter();
+        for (int i = 0; i < PATHS.length; i++) {
+            writer.add(PATHS[i], "test.Target" + i, i % 2 == 0 ? 'a' : 's',
+                    i % 3 == 0 ? new String[0] : new String[]{"拦截" + i, "i" + i});
+        }
+        // enough paths for buckets with several keys.
+        for (int i = 0; i < 1000; i++) {
+            writer.add("app://many/" + i, "test.Many", 'f', new String[]{"i"});
+        }
+        byte[] index = writer.build();
+        Object table = open(index);
+
+        assertEquals(PATHS.length + 1000, invoke(table, "size"));
+        for (int i = 0; i < PATHS.length; i++) {
+            int slot = (Integer) invoke(table, "indexOf", PATHS[i]);
+            assertTrue(PATHS[i], slot >= 0);
+            assertEquals(PATHS[i], invoke(table, "getPath", slot));
+            Object target = invoke(table, "getTarget", slot);
+            assertEquals("test.Target" + i, field(target, "name"));
+            assertEquals(i % 2 == 0 ? 'a' : 's', field(target, "type"));
+            assertEquals(i % 3 == 0 ? Arrays.<String>asList() : Arrays.asList("拦截" + i, "i" + i),
+                    Arrays.asList((String[]) invoke(table, "getInterceptors", slot)));
+        }
+        for (int i = 0; i < 1000; i++) {
+            int slot = (Integer) invoke(table, "indexOf", "app://many/" + i);
+            assertEquals("app://many/" + i, invoke(table, "getPath", slot));
+            assertEquals('f', field(invoke(table, "getTarget", slot), "type"));
+        }
+        for (String path : MISSING) {
+            assertEquals(path, -1, invoke(table, "indexOf", path));
+        }
+    }
+
+    @Test
+    public void emptyIndex() throws Exception {
+        Object table = open(new RouteIndexWriter().build());
+        assertEquals(0, invoke(table, "size"));
+        assertEquals(-1, invoke(table, "indexOf", "app://host/page"));
+    }
+
+    @Test
+    public void staleIndex() throws Exception {
+        RouteIndexWriter writer = new RouteIndexWriter();
+        writer.add("中文/路径", "test.Target", 'a', new String[0]);
+        byte[] index = writer.build();
+        long fingerprint = RouteIndexWriter.fingerprintOf(index);
+        assertTrue((Boolean) check.invoke(null, ByteBuffer.wrap(index), fingerprint));
+        assertFalse((Boolean) check.invoke(null, ByteBuffer.wrap(index), fingerprint + 1));
+        byte[] truncated = Arrays.copyOf(index, RouteIndexWriter.HEADER_SIZE + 4);
+        assertFalse((Boolean) check.invoke(null, ByteBuffer.wrap(truncated), fingerprint));
+        index[3]++;
+        assertFalse((Boolean) check.invoke(null, ByteBuffer.wrap(index), fingerprint));
+    }
+
+    private Object open(byte[] index) throws Exception {
+        ByteBuffer buffer = ByteBuffer.wrap(index);
+        assertTrue((Boolean) check.invoke(null, buffer, RouteIndexWriter.fingerprintOf(index)));
+        return constructor.newInstance(buffer);
+    }
+
+    private static Object invoke(Object target, String name, Object... args) throws Exception {
+        for (Method method : target.getClass().getMethods()) {
+            if (method.getName().equals(name) && method.getParameterTypes().length == args.length) {
+                return method.invoke(target, args);
+            }
+        }
+        throw new NoSuchMethodException(name);
+    }
+
+    private static Object field(Object target, String name) throws Exception {
+        return target.getClass().getField(name).get(target);
+    }
+
+    private File write(String name, String content) throws IOException {
+        Path file = dir.resolve("src").resolve(name);
+        Files.createDirectories(file.getParent());
+        Files.write(file, content.getBytes(UTF_8));
+        return file.toFile();
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
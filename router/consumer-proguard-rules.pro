@@ -0,0 +1,7 @@
+# Rules applied to apps that use Router, they're packaged into the aar.
+
+# Router
+-keep class com.chenenyu.router.** {*;}
+-keep class * implements com.chenenyu.router.template.ParamInjector {*;}
+# Route targets may be loaded by their class names, see Configuration.Builder#setDeferTargetLoading.
+-keepnames @com.chenenyu.router.annotation.Route class *
@@ -1,115 +1,822 @@
 package com.chenenyu.router;
 
+import android.content.Context;
+import android.support.annotation.Nullable;
+
+import com.chenenyu.router.template.InterceptorFactory;
 import com.chenenyu.router.template.InterceptorTable;
+import com.chenenyu.router.template.ModuleRegistry;
 import com.chenenyu.router.template.ParamInjector;
+import com.chenenyu.router.template.RouteGroups;
+import com.chenenyu.router.template.RouteHashTable;
 import com.chenenyu.router.template.RouteTable;
+import com.chenenyu.router.template.RouteTargetTable;
+import com.chenenyu.router.template.TargetInterceptorNames;
 import com.chenenyu.router.template.TargetInterceptors;
 import com.chenenyu.router.util.RLog;
+import com.chenenyu.router.util.RouteGrouping;
 
-import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Hub for 'apt' classes.
  * <p>
+ * Tables are published as immutable snapshots. Writers are synchronized, they copy the current
+ * snapshot, change the copy and then swap it in, so readers never lock and never see a table
+ * that is being changed.
+ * <p>
  * Created by chenenyu on 2017/3/13.
  */
 public class AptHub {
-    private static final String PACKAGE_NAME = "com.chenenyu.router";
-    private static final String DOT = ".";
-    private static final String ROUTE_TABLE = "RouteTable";
-    private static final String INTERCEPTOR_TABLE = "InterceptorTable";
-    private static final String TARGET_INTERCEPTORS = "TargetInterceptors";
     static final String PARAM_CLASS_SUFFIX = "$$Router$$ParamInjector";
 
     // Uri -> Activity/Fragment
-    static Map<String, Class<?>> routeTable = new HashMap<>();
-    // Activity/Fragment -> interceptorTable' name
-    static Map<Class<?>, String[]> targetInterceptors = new LinkedHashMap<>();
+    static volatile Map<String, RouteTarget> routeTable = Collections.emptyMap();
+    // Index over routeTable, read routes from it so that the table and the index are consistent.
+    static volatile RouteIndex routeIndex = new RouteIndex(routeTable, Collections.<String, RouteKey>emptyMap());
+    // Uri -> resolved route
+    static final RouteCache routeCache = new RouteCache();
+    // Whether to register route groups and load them on first access, instead of the whole tables.
+    static volatile boolean lazyRouteGroups;
+    // Whether to register targets by class names, so that they're loaded on first route.
+    static volatile boolean deferTargetLoading;
+    // perfect hash tables of registered modules, in the order they're registered.
+    static volatile RouteHashTable[] routeHashTables = new RouteHashTable[0];
+    // route table -> its hash table, mapped from assets or the table itself.
+    static volatile Map<RouteTable, RouteHashTable> routeHashes = Collections.emptyMap();
+    // Context to map route indexes from assets, null to look up in the generated tables.
+    @Nullable
+    static volatile Context routeIndexContext;
+    // group -> tables that have routes of the group not loaded yet.
+    static volatile Map<String, List<RouteGroups>> pendingRouteGroups = Collections.emptyMap();
+    // module -> time to load its tables, in microseconds.
+    static volatile Map<String, Long> moduleTimings = Collections.emptyMap();
+    // counted down when all modules of the registration in progress are merged.
+    @Nullable
+    private static volatile CountDownLatch registration;
+    // Activity/Fragment -> interceptorTable' name, only targets that have been loaded.
+    static volatile Map<Class<?>, String[]> targetInterceptors = Collections.emptyMap();
+    // All targets' interceptors keyed by class name, including the targets that haven't been loaded.
+    static volatile Map<String, String[]> targetInterceptorNames = Collections.emptyMap();
+    // mapped indexes whose targets' interceptors are read from the index, not in targetInterceptorNames.
+    static volatile MappedRouteTable[] interceptorIndexes = new MappedRouteTable[0];
     // interceptor's name -> interceptor
-    static Map<String, Class<? extends RouteInterceptor>> interceptorTable = new HashMap<>();
-    static Map<String, RouteInterceptor> interceptorInstances = new HashMap<>();
+    static volatile Map<String, Class<? extends RouteInterceptor>> interceptorTable = Collections.emptyMap();
+    static final ConcurrentMap<String, RouteInterceptor> interceptorInstances = new ConcurrentHashMap<>();
+    // generated factories of modules, they create interceptors without reflection.
+    static volatile List<InterceptorFactory> interceptorFactories = Collections.emptyList();
+    // name of Activity/Fragment -> interceptors, rebuilt when the tables change. Chains of targets in
+    // mapped indexes are built on first use, so that the indexes aren't read through.
+    static volatile ConcurrentMap<String, RouteInterceptor[]> interceptorChains = new ConcurrentHashMap<>();
+    static final RouteInterceptor[] NO_INTERCEPTORS = new RouteInterceptor[0];
+    // (interceptor, target) -> cached pass
+    static final InterceptorCache interceptorCache = new InterceptorCache();
+    // timing and budget of interceptors
+    static final InterceptorMonitor interceptorMonitor = new InterceptorMonitor();
     // injector's name -> injector
-    static Map<String, Class<ParamInjector>> injectors = new HashMap<>();
+    static final Map<String, Class<ParamInjector>> injectors = new ConcurrentHashMap<>();
 
+    /**
+     * @return Unmodifiable snapshot of the route table. Route groups and target classes that haven't been
+     * loaded are loaded.
+     */
     public static Map<String, Class<?>> getRouteTable() {
-        return routeTable;
+        loadAllRouteGroups();
+        Map<String, RouteTarget> targets = routeTable;
+        Map<String, Class<?>> table = new HashMap<>(targets.size() * 4 / 3 + 1);
+        for (Map.Entry<String, RouteTarget> entry : targets.entrySet()) {
+            Class<?> clz = entry.getValue().getTargetClass();
+            if (clz != null) {
+                table.put(entry.getKey(), clz);
+            }
+        }
+        return Collections.unmodifiableMap(table);
     }
 
     /**
      * This method offers an ability to register modules for developers.
      *
-     * @param modules extra modules' name
+     * @param modules  extra modules' name
+     * @param executor loads the modules concurrently if not null, the calling thread waits for it.
      */
-    synchronized static void registerModules(String... modules) {
+    synchronized static void registerModules(String[] modules, @Nullable Executor executor) {
         if (modules == null || modules.length == 0) {
             RLog.w("empty modules.");
         } else {
             // validate module name first.
             validateModuleName(modules);
 
-            /* RouteTable */
-            String routeTableName;
+            List<ModuleTables> tables = new ArrayList<>(modules.length);
             for (String module : modules) {
-                try {
-                    routeTableName = PACKAGE_NAME + DOT + capitalize(module) + ROUTE_TABLE;
-                    Class<?> routeTableClz = Class.forName(routeTableName);
-                    Constructor constructor = routeTableClz.getConstructor();
-                    RouteTable instance = (RouteTable) constructor.newInstance();
-                    instance.handle(routeTable);
-                } catch (ClassNotFoundException e) {
-                    RLog.i(String.format("There is no RouteTable in module: %s.", module));
-                } catch (Exception e) {
-                    RLog.w(e.getMessage());
+                tables.add(ModuleTables.forName(module));
+            }
+            registerTables(tables, executor);
+        }
+    }
+
+    /**
+     * Register the tables of all modules aggregated at compile time, without reflection.
+     *
+     * @param registry generated registry, such as <code>new AppModuleRegistry()</code>.
+     * @param executor loads the modules concurrently if not null, the calling thread waits for it.
+     */
+    synchronized static void registerModules(ModuleRegistry registry, @Nullable Executor executor) {
+        // module name -> tables, in the order of the registry.
+        Map<String, ModuleTables> tables = new LinkedHashMap<>();
+        addModuleTables(tables, registry.getRouteTables(), ModuleTables.ROUTE_TABLE);
+        addModuleTables(tables, registry.getTargetInterceptors(), ModuleTables.TARGET_INTERCEPTORS);
+        addModuleTables(tables, registry.getInterceptorTables(), ModuleTables.INTERCEPTOR_TABLE);
+        addModuleTables(tables, registry.getInterceptorFactories(), ModuleTables.INTERCEPTOR_FACTORY);
+        registerTables(new ArrayList<>(tables.values()), executor);
+    }
+
+    private static void addModuleTables(Map<String, ModuleTables> tables, Object[] array, String suffix) {
+        for (Object table : array) {
+            String module = ModuleTables.moduleOf(table, suffix);
+            String key = module;
+            // e.g. two custom tables of the same name, keep both.
+            for (int i = 1; ; i++) {
+                ModuleTables moduleTables = tables.get(key);
+                if (moduleTables == null) {
+                    moduleTables = ModuleTables.of(module);
+                    tables.put(key, moduleTables);
                 }
+                if (moduleTables.offer(table, suffix)) {
+                    break;
+                }
+                key = module + '#' + i;
             }
-            RLog.i("RouteTable", routeTable.toString());
+        }
+    }
 
-            /* TargetInterceptors */
-            String targetInterceptorsName;
-            for (String moduleName : modules) {
+    /**
+     * Start a registration. Routes issued from other threads wait for it until
+     * {@link #endRegistration(CountDownLatch)}, so call it before the first module is registered.
+     *
+     * @return The latch to end the registration with.
+     */
+    static CountDownLatch beginRegistration() {
+        CountDownLatch latch = new CountDownLatch(1);
+        registration = latch;
+        return latch;
+    }
+
+    /**
+     * End the registration when all modules are merged, or it failed.
+     */
+    static void endRegistration(CountDownLatch latch) {
+        latch.countDown();
+    }
+
+    /**
+     * @return True if a registration is in progress and not merged yet.
+     */
+    static boolean isRegistering() {
+        CountDownLatch latch = registration;
+        return latch != null && latch.getCount() > 0 && !Thread.holdsLock(AptHub.class);
+    }
+
+    /**
+     * Wait until the registration in progress is merged, so that a route issued meanwhile
+     * from another thread doesn't see partial tables.
+     */
+    static void awaitRegistration() {
+        CountDownLatch latch = registration;
+        if (latch == null || latch.getCount() == 0 || Thread.holdsLock(AptHub.class)) {
+            return;
+        }
+        boolean interrupted = false;
+        while (true) {
+            try {
+                latch.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Load the modules, concurrently if an executor is given, then merge them in order. Later modules
+     * override the duplicate paths of former ones, as they did when loaded one by one.
+     */
+    private static void registerTables(List<ModuleTables> modules, @Nullable Executor executor) {
+        mergeModules(loadModules(modules, executor));
+    }
+
+    /**
+     * @return The modules that are loaded, a module that fails to load is logged and skipped.
+     */
+    private static List<ModuleTables> loadModules(List<ModuleTables> modules, @Nullable Executor executor) {
+        final boolean lazy = lazyRouteGroups;
+        final Context assets = routeIndexContext;
+        if (executor == null || modules.size() < 2) {
+            for (ModuleTables module : modules) {
+                module.load(lazy, assets);
+            }
+        } else {
+            final CountDownLatch done = new CountDownLatch(modules.size());
+            for (final ModuleTables module : modules) {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            module.load(lazy, assets);
+                        } finally {
+                            done.countDown();
+                        }
+                    }
+                });
+            }
+            boolean interrupted = false;
+            while (true) {
                 try {
-                    targetInterceptorsName = PACKAGE_NAME + DOT + capitalize(moduleName) + TARGET_INTERCEPTORS;
-                    Class<?> clz = Class.forName(targetInterceptorsName);
-                    Constructor constructor = clz.getConstructor();
-                    TargetInterceptors instance = (TargetInterceptors) constructor.newInstance();
-                    instance.handle(targetInterceptors);
-                } catch (ClassNotFoundException e) {
-                    RLog.i(String.format("There is no TargetInterceptors in module: %s.", moduleName));
-                } catch (Exception e) {
-                    RLog.w(e.getMessage());
+                    done.await();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        List<ModuleTables> loaded = new ArrayList<>(modules.size());
+        for (ModuleTables module : modules) {
+            // errors aren't recoverable, other failures only lose the module, as its tables were skipped before.
+            if (module.failure instanceof Error) {
+                throw (Error) module.failure;
+            } else if (module.failure != null) {
+                RLog.w(String.format("Failed to load module %s, skip it: %s", module.name, module.failure));
+            } else {
+                loaded.add(module);
+            }
+        }
+        return loaded;
+    }
+
+    private static void mergeModules(List<ModuleTables> modules) {
+        /* RouteTable */
+        Map<String, RouteTarget> routeTable = new HashMap<>(AptHub.routeTable);
+        Map<String, List<RouteGroups>> pendingRouteGroups = new HashMap<>(AptHub.pendingRouteGroups);
+        // path -> module, to report duplicate paths.
+        Map<String, String> owners = new HashMap<>();
+        Map<String, Long> moduleTimings = new LinkedHashMap<>(AptHub.moduleTimings);
+        List<RouteHashTable> routeHashTables = new ArrayList<>(Arrays.asList(AptHub.routeHashTables));
+        Map<RouteTable, RouteHashTable> routeHashes = new IdentityHashMap<>(AptHub.routeHashes);
+        for (ModuleTables module : modules) {
+            for (Map.Entry<String, RouteTarget> entry : module.routes.entrySet()) {
+                String path = entry.getKey();
+                RouteTarget previous = routeTable.put(path, entry.getValue());
+                String owner = owners.put(path, module.name);
+                if (previous != null) {
+                    RLog.w(String.format("Duplicate route path: %s[%s of %s, %s of %s]", path, entry.getValue(),
+                            module.name, previous, owner == null ? "registered tables" : owner));
                 }
             }
-            if (!targetInterceptors.isEmpty()) {
-                RLog.i("TargetInterceptors", targetInterceptors.toString());
+            for (String group : module.routeGroups) {
+                List<RouteGroups> tables = pendingRouteGroups.get(group);
+                tables = tables == null ? new ArrayList<RouteGroups>(1) : new ArrayList<>(tables);
+                tables.add((RouteGroups) module.routeTable);
+                pendingRouteGroups.put(group, tables);
+            }
+            if (module.routeHash != null) {
+                routeHashTables.add(module.routeHash);
+                routeHashes.put(module.routeTable, module.routeHash);
+            }
+            long micros = TimeUnit.NANOSECONDS.toMicros(module.loadNanos);
+            moduleTimings.put(module.name, micros);
+            RLog.i(String.format("Module %s loaded in %dus: %d routes, %d groups, %d interceptors.", module.name,
+                    micros, module.routes.size(), module.routeGroups.size(), module.interceptors.size()));
+        }
+        RLog.i("RouteTable", routeTable.toString());
+        if (!pendingRouteGroups.isEmpty()) {
+            RLog.i("RouteGroups", pendingRouteGroups.keySet().toString());
+        }
+        AptHub.routeHashTables = routeHashTables.toArray(new RouteHashTable[routeHashTables.size()]);
+        AptHub.routeHashes = Collections.unmodifiableMap(routeHashes);
+        publishRouteTable(routeTable, true);
+        AptHub.pendingRouteGroups = Collections.unmodifiableMap(pendingRouteGroups);
+        AptHub.moduleTimings = Collections.unmodifiableMap(moduleTimings);
+
+        /* TargetInterceptors */
+        Map<Class<?>, String[]> targetInterceptors = new LinkedHashMap<>(AptHub.targetInterceptors);
+        Map<String, String[]> targetInterceptorNames = new HashMap<>(AptHub.targetInterceptorNames);
+        List<MappedRouteTable> interceptorIndexes = new ArrayList<>(Arrays.asList(AptHub.interceptorIndexes));
+        for (ModuleTables module : modules) {
+            targetInterceptors.putAll(module.targets);
+            for (Map.Entry<Class<?>, String[]> entry : module.targets.entrySet()) {
+                targetInterceptorNames.put(entry.getKey().getName(), entry.getValue());
+            }
+            targetInterceptorNames.putAll(module.targetNames);
+            if (module.routeHash instanceof MappedRouteTable) {
+                interceptorIndexes.add((MappedRouteTable) module.routeHash);
             }
+        }
+        if (!targetInterceptorNames.isEmpty()) {
+            RLog.i("TargetInterceptors", targetInterceptorNames.keySet().toString());
+        }
+        AptHub.targetInterceptors = Collections.unmodifiableMap(targetInterceptors);
+        AptHub.targetInterceptorNames = Collections.unmodifiableMap(targetInterceptorNames);
+        AptHub.interceptorIndexes = interceptorIndexes.toArray(new MappedRouteTable[interceptorIndexes.size()]);
 
-            /* InterceptorTable */
-            String interceptorName;
-            for (String moduleName : modules) {
-                try {
-                    interceptorName = PACKAGE_NAME + DOT + capitalize(moduleName) + INTERCEPTOR_TABLE;
-                    Class<?> clz = Class.forName(interceptorName);
-                    Constructor constructor = clz.getConstructor();
-                    InterceptorTable instance = (InterceptorTable) constructor.newInstance();
-                    instance.handle(interceptorTable);
-                } catch (ClassNotFoundException e) {
-                    RLog.i(String.format("There is no InterceptorTable in module: %s.", moduleName));
-                } catch (Exception e) {
-                    RLog.w(e.getMessage());
+        /* InterceptorTable */
+        Map<String, Class<? extends RouteInterceptor>> interceptorTable = new HashMap<>(AptHub.interceptorTable);
+        for (ModuleTables module : modules) {
+            interceptorTable.putAll(module.interceptors);
+        }
+        if (!interceptorTable.isEmpty()) {
+            RLog.i("InterceptorTable", interceptorTable.toString());
+        }
+        AptHub.interceptorTable = Collections.unmodifiableMap(interceptorTable);
+
+        /* InterceptorFactory */
+        List<InterceptorFactory> interceptorFactories = new ArrayList<>(AptHub.interceptorFactories);
+        for (ModuleTables module : modules) {
+            if (module.interceptorFactory != null) {
+                interceptorFactories.add(module.interceptorFactory);
+            }
+        }
+        AptHub.interceptorFactories = Collections.unmodifiableList(interceptorFactories);
+        resetInterceptorChains();
+    }
+
+    /**
+     * Apply a custom route table.
+     * <p>
+     * If targets are deferred, no target is loaded: a {@link RouteTargetTable} sees and changes all
+     * routes by class names, other tables only add or override routes, they see an empty map.
+     */
+    synchronized static void handleRouteTable(RouteTable handler) {
+        // load all groups first, so that the custom table overrides them as before.
+        loadAllRouteGroups();
+        // the hash tables would still find the routes the handler removes or remaps, and all their routes
+        // are in the route table now.
+        AptHub.routeHashTables = new RouteHashTable[0];
+        AptHub.routeHashes = Collections.emptyMap();
+        Map<String, RouteTarget> targets = AptHub.routeTable;
+        if (deferTargetLoading) {
+            Map<String, RouteTarget> routeTable = new HashMap<>(targets);
+            if (handler instanceof RouteTargetTable) {
+                ((RouteTargetTable) handler).handleTargets(routeTable);
+            } else {
+                Map<String, Class<?>> classes = new HashMap<>();
+                handler.handle(classes);
+                for (Map.Entry<String, Class<?>> entry : classes.entrySet()) {
+                    routeTable.put(entry.getKey(), RouteTarget.of(entry.getValue()));
+                }
+            }
+            publishRouteTable(routeTable, true);
+            return;
+        }
+        // custom tables see and change classes, so all targets are loaded.
+        Map<String, Class<?>> classes = new HashMap<>(getRouteTable());
+        handler.handle(classes);
+        Map<String, RouteTarget> routeTable = new HashMap<>(classes.size() * 4 / 3 + 1);
+        for (Map.Entry<String, Class<?>> entry : classes.entrySet()) {
+            RouteTarget target = targets.get(entry.getKey());
+            routeTable.put(entry.getKey(), target != null && target.getTargetClass() == entry.getValue()
+                    ? target : RouteTarget.of(entry.getValue()));
+        }
+        publishRouteTable(routeTable, true);
+    }
+
+    /**
+     * Put routes of the table into the given map, by class names if targets are deferred and the table
+     * supports it.
+     */
+    static void applyRouteTable(RouteTable table, Map<String, RouteTarget> routeTable) {
+        if (deferTargetLoading && table instanceof RouteTargetTable) {
+            ((RouteTargetTable) table).handleTargets(routeTable);
+            return;
+        }
+        Map<String, Class<?>> classes = new HashMap<>();
+        table.handle(classes);
+        for (Map.Entry<String, Class<?>> entry : classes.entrySet()) {
+            routeTable.put(entry.getKey(), RouteTarget.of(entry.getValue()));
+        }
+    }
+
+    /**
+     * Whether there is no route, including route groups that haven't been loaded.
+     */
+    static boolean isRouteTableEmpty() {
+        return routeIndex.isEmpty() && pendingRouteGroups.isEmpty();
+    }
+
+    /**
+     * The route index, with the route group of the given uri loaded. If the uri is an exact path in the
+     * perfect hash tables of all pending tables of its group, the group isn't loaded, the index finds
+     * the route in the hash tables. Generated hash tables only answer if targets are deferred, mapped
+     * indexes always do, as they have the targets' interceptors too.
+     *
+     * @param uri uri string.
+     */
+    static RouteIndex getRouteIndex(String uri) {
+        Map<String, List<RouteGroups>> pending = pendingRouteGroups;
+        if (!pending.isEmpty()) {
+            String group = RouteGrouping.groupOf(uri);
+            if (group == null) {
+                loadRouteGroups(null);
+            } else {
+                List<RouteGroups> tables = pending.get(group);
+                if (tables != null && !isHashed(tables, uri)) {
+                    loadRouteGroups(group);
+                }
+            }
+        }
+        return routeIndex;
+    }
+
+    /**
+     * Whether all the tables have perfect hash tables that can answer without loading the group,
+     * and one of them has the path.
+     */
+    private static boolean isHashed(List<RouteGroups> tables, String route) {
+        Map<RouteTable, RouteHashTable> hashes = routeHashes;
+        boolean defer = deferTargetLoading;
+        boolean found = false;
+        for (int i = 0, size = tables.size(); i < size; i++) {
+            RouteHashTable hash = hashes.get(tables.get(i));
+            if (hash == null || !(defer || hash instanceof MappedRouteTable)) {
+                return false;
+            }
+            found = found || hash.indexOf(route) >= 0;
+        }
+        return found;
+    }
+
+    /**
+     * The route index, with all route groups loaded. Matchers that can't look up routes need it.
+     */
+    static RouteIndex loadAllRouteGroups() {
+        if (!pendingRouteGroups.isEmpty()) {
+            loadRouteGroups(null);
+        }
+        return routeIndex;
+    }
+
+    /**
+     * Load the given route group, or all groups if it's null.
+     */
+    private synchronized static void loadRouteGroups(@Nullable String group) {
+        Map<String, List<RouteGroups>> pending = new HashMap<>(pendingRouteGroups);
+        Collection<String> groups = group == null ? new ArrayList<>(pending.keySet()) : Collections.singleton(group);
+        Map<String, RouteTarget> routeTable = new HashMap<>(AptHub.routeTable);
+        boolean loaded = false;
+        for (String name : groups) {
+            List<RouteGroups> tables = pending.remove(name);
+            if (tables == null) {
+                // loaded by another thread.
+                continue;
+            }
+            for (RouteGroups table : tables) {
+                RouteTable groupTable = table.getGroup(name);
+                if (groupTable != null) {
+                    applyRouteTable(groupTable, routeTable);
+                }
+            }
+            loaded = true;
+        }
+        if (loaded) {
+            RLog.i("Load route groups: " + (group == null ? "all" : group));
+            // groups are disjoint, so the cached routes of loaded groups are still right.
+            publishRouteTable(routeTable, false);
+            pendingRouteGroups = Collections.unmodifiableMap(pending);
+        }
+    }
+
+    /**
+     * Apply a custom interceptor table.
+     */
+    synchronized static void handleInterceptorTable(InterceptorTable handler) {
+        Map<String, Class<? extends RouteInterceptor>> interceptorTable = new HashMap<>(AptHub.interceptorTable);
+        handler.handle(interceptorTable);
+        AptHub.interceptorTable = Collections.unmodifiableMap(interceptorTable);
+        resetInterceptorChains();
+    }
+
+    /**
+     * Apply custom targets' interceptors. Interceptors in mapped indexes are read into the maps first,
+     * so that the handler sees and changes them too.
+     */
+    synchronized static void handleTargetInterceptors(TargetInterceptors handler) {
+        Map<String, String[]> names = new HashMap<>(targetInterceptorNames);
+        Map<String, String[]> mapped = readInterceptorIndexes(names);
+        names.putAll(mapped);
+        if (deferTargetLoading && handler instanceof TargetInterceptorNames) {
+            ((TargetInterceptorNames) handler).handleNames(names);
+            AptHub.targetInterceptorNames = Collections.unmodifiableMap(names);
+            AptHub.interceptorIndexes = new MappedRouteTable[0];
+            resetInterceptorChains();
+            return;
+        }
+        // the handler only sees the loaded targets, targets it removes are removed by names too.
+        Map<Class<?>, String[]> targetInterceptors = new LinkedHashMap<>(AptHub.targetInterceptors);
+        for (Map.Entry<String, String[]> entry : mapped.entrySet()) {
+            try {
+                targetInterceptors.put(Class.forName(entry.getKey()), entry.getValue());
+            } catch (ClassNotFoundException e) {
+                RLog.e("Can't find route target: " + entry.getKey(), e);
+            }
+        }
+        Map<Class<?>, String[]> loaded = new LinkedHashMap<>(targetInterceptors);
+        handler.handle(targetInterceptors);
+        for (Class<?> target : loaded.keySet()) {
+            if (!targetInterceptors.containsKey(target)) {
+                names.remove(target.getName());
+            }
+        }
+        for (Map.Entry<Class<?>, String[]> entry : targetInterceptors.entrySet()) {
+            names.put(entry.getKey().getName(), entry.getValue());
+        }
+        AptHub.targetInterceptors = Collections.unmodifiableMap(targetInterceptors);
+        AptHub.targetInterceptorNames = Collections.unmodifiableMap(names);
+        AptHub.interceptorIndexes = new MappedRouteTable[0];
+        resetInterceptorChains();
+    }
+
+    /**
+     * Interceptors of all targets in mapped indexes that aren't in the given map, by class names.
+     */
+    private static Map<String, String[]> readInterceptorIndexes(Map<String, String[]> names) {
+        Map<String, String[]> mapped = new LinkedHashMap<>();
+        MappedRouteTable[] indexes = interceptorIndexes;
+        // later indexes override former ones.
+        for (int i = indexes.length - 1; i >= 0; i--) {
+            for (int slot = 0, size = indexes[i].size(); slot < size; slot++) {
+                String[] interceptors = indexes[i].getInterceptors(slot);
+                String target = indexes[i].getTarget(slot).getName();
+                if (interceptors.length > 0 && !names.containsKey(target) && !mapped.containsKey(target)) {
+                    mapped.put(target, interceptors);
+                }
+            }
+        }
+        return mapped;
+    }
+
+    /**
+     * Interceptors' names of the target in order, from the tables, or else from the mapped index
+     * that has the route.
+     *
+     * @param target class name of the target.
+     * @param route  path in route table that resolves to the target.
+     * @return The names, or null if the target has no interceptors.
+     */
+    @Nullable
+    static String[] getTargetInterceptorNames(String target, @Nullable String route) {
+        String[] names = targetInterceptorNames.get(target);
+        if (names != null || route == null) {
+            return names;
+        }
+        MappedRouteTable[] indexes = interceptorIndexes;
+        for (int i = indexes.length - 1; i >= 0; i--) {
+            int slot = indexes[i].indexOf(route);
+            if (slot >= 0 && target.equals(indexes[i].getTarget(slot).getName())) {
+                String[] interceptors = indexes[i].getInterceptors(slot);
+                return interceptors.length == 0 ? null : interceptors;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Interceptors of the target in order. The array is shared, don't change it.
+     *
+     * @param target class name of the target.
+     * @param route  path in route table that resolves to the target, to find interceptors in mapped indexes.
+     */
+    static RouteInterceptor[] getInterceptorChain(String target, @Nullable String route) {
+        // read chains before tables, so that a chain built from stale tables goes to a dropped map.
+        ConcurrentMap<String, RouteInterceptor[]> chains = interceptorChains;
+        RouteInterceptor[] chain = chains.get(target);
+        if (chain != null) {
+            return chain;
+        }
+        String[] names = getTargetInterceptorNames(target, route);
+        if (names == null) {
+            chains.put(target, NO_INTERCEPTORS);
+            return NO_INTERCEPTORS;
+        }
+        List<String> failed = new ArrayList<>(0);
+        chain = buildInterceptorChain(Arrays.asList(names), failed);
+        if (failed.isEmpty()) {
+            chains.put(target, chain);
+        } else {
+            // not cached, so that the failed interceptors are tried again on next route.
+            RLog.e(String.format("Interceptors %s of %s are skipped this time.", failed, target));
+        }
+        return chain;
+    }
+
+    /**
+     * Instances of the named interceptors sorted by priority, names that can't be instantiated
+     * are skipped. Names from one module are sorted at compile time already, so they are only
+     * sorted here if the chain mixes modules.
+     */
+    static RouteInterceptor[] buildInterceptorChain(Collection<String> names) {
+        return buildInterceptorChain(names, null);
+    }
+
+    /**
+     * @param failed names that can't be instantiated are added to it.
+     */
+    private static RouteInterceptor[] buildInterceptorChain(Collection<String> names, @Nullable List<String> failed) {
+        List<RouteInterceptor> chain = new ArrayList<>(names.size());
+        final Map<RouteInterceptor, Integer> priorities = new HashMap<>();
+        boolean sorted = true;
+        int last = Integer.MAX_VALUE;
+        for (String name : names) {
+            RouteInterceptor interceptor = getInterceptor(name);
+            if (interceptor != null) {
+                int priority = getInterceptorPriority(name);
+                sorted &= priority <= last;
+                last = priority;
+                chain.add(interceptor);
+                priorities.put(interceptor, priority);
+            } else if (failed != null) {
+                failed.add(name);
+            }
+        }
+        if (!sorted) {
+            // stable, interceptors with the same priority keep the declared order.
+            Collections.sort(chain, new Comparator<RouteInterceptor>() {
+                @Override
+                public int compare(RouteInterceptor o1, RouteInterceptor o2) {
+                    return Integer.compare(priorityOf(o2), priorityOf(o1));
+                }
+
+                private int priorityOf(RouteInterceptor interceptor) {
+                    Integer priority = priorities.get(interceptor);
+                    return priority == null ? 0 : priority;
                 }
+            });
+        }
+        return chain.isEmpty() ? NO_INTERCEPTORS : chain.toArray(new RouteInterceptor[chain.size()]);
+    }
+
+    /**
+     * Priority of the named interceptor declared by {@link com.chenenyu.router.annotation.Interceptor},
+     * 0 if it's not generated.
+     */
+    static int getInterceptorPriority(String name) {
+        List<InterceptorFactory> factories = interceptorFactories;
+        for (int i = 0; i < factories.size(); i++) {
+            int priority = factories.get(i).priority(name);
+            if (priority != 0) {
+                return priority;
             }
-            if (!interceptorTable.isEmpty()) {
-                RLog.i("InterceptorTable", interceptorTable.toString());
+        }
+        return 0;
+    }
+
+    /**
+     * The shared instance of the named interceptor, it's created on first use.
+     */
+    @Nullable
+    static RouteInterceptor getInterceptor(String name) {
+        RouteInterceptor interceptor = interceptorInstances.get(name);
+        if (interceptor != null) {
+            return interceptor;
+        }
+        Class<? extends RouteInterceptor> clz = interceptorTable.get(name);
+        if (clz == null) {
+            RLog.e("There is no interceptor named: " + name);
+            return null;
+        }
+        interceptor = createInterceptor(name, clz);
+        if (interceptor == null) {
+            return null;
+        }
+        RouteInterceptor existing = interceptorInstances.putIfAbsent(name, interceptor);
+        return existing != null ? existing : interceptor;
+    }
+
+    /**
+     * Create the interceptor by generated factories, or by reflection if it's not generated,
+     * e.g. it's from a custom interceptor table.
+     */
+    @Nullable
+    private static RouteInterceptor createInterceptor(String name, Class<? extends RouteInterceptor> clz) {
+        List<InterceptorFactory> factories = interceptorFactories;
+        for (int i = 0; i < factories.size(); i++) {
+            RouteInterceptor interceptor = factories.get(i).create(name);
+            if (interceptor != null && interceptor.getClass() == clz) {
+                return interceptor;
             }
         }
+        try {
+            return clz.getConstructor().newInstance();
+        } catch (Exception e) {
+            RLog.e("Can't construct a interceptor with name: " + name, e);
+            return null;
+        }
     }
 
-    private static String capitalize(CharSequence self) {
-        return self.length() == 0 ? "" :
-                "" + Character.toUpperCase(self.charAt(0)) + self.subSequence(1, self.length());
+    /**
+     * Create the interceptors of the given routes ahead of time, and build their chains.
+     *
+     * @param routes paths in route table, or null for all routes.
+     */
+    static void preloadInterceptors(@Nullable String... routes) {
+        if (routes == null) {
+            for (String target : targetInterceptorNames.keySet()) {
+                getInterceptorChain(target, null);
+            }
+            for (MappedRouteTable index : interceptorIndexes) {
+                for (int slot = 0, size = index.size(); slot < size; slot++) {
+                    getInterceptorChain(index.getTarget(slot).getName(), index.getPath(slot));
+                }
+            }
+            return;
+        }
+        for (String route : routes) {
+            RouteTarget target = getRouteIndex(route).target(route);
+            if (target != null) {
+                getInterceptorChain(target.getName(), route);
+            } else {
+                RLog.w("Can't preload interceptors of unknown route: " + route);
+            }
+        }
+    }
+
+    /**
+     * Drop the instances whose class has changed, and rebuild the chains of targets in the tables.
+     * Chains that can't be built completely are left to be built on use.
+     */
+    private static void resetInterceptorChains() {
+        Map<String, Class<? extends RouteInterceptor>> table = interceptorTable;
+        for (Iterator<Map.Entry<String, RouteInterceptor>> it = interceptorInstances.entrySet().iterator();
+             it.hasNext(); ) {
+            Map.Entry<String, RouteInterceptor> entry = it.next();
+            if (entry.getValue().getClass() != table.get(entry.getKey())) {
+                it.remove();
+            }
+        }
+        ConcurrentMap<String, RouteInterceptor[]> chains = new ConcurrentHashMap<>();
+        List<String> failed = new ArrayList<>(0);
+        for (Map.Entry<String, String[]> entry : targetInterceptorNames.entrySet()) {
+            List<String> names = Arrays.asList(entry.getValue());
+            // the interceptors may be registered by a later module, the chain is built on use then.
+            if (!table.keySet().containsAll(names)) {
+                continue;
+            }
+            RouteInterceptor[] chain = buildInterceptorChain(names, failed);
+            if (failed.isEmpty()) {
+                chains.put(entry.getKey(), chain);
+            } else {
+                // the failures are logged, and they're tried again on use.
+                failed.clear();
+            }
+        }
+        interceptorChains = chains;
+        interceptorCache.clear();
+    }
+
+    /**
+     * Build the index of the given route table, then publish both of them.
+     *
+     * @param table      new route table, it must not be changed afterwards.
+     * @param clearCache whether the resolved routes may have changed.
+     */
+    private static void publishRouteTable(Map<String, RouteTarget> table, boolean clearCache) {
+        Map<String, RouteTarget> routeTable = Collections.unmodifiableMap(table);
+        Map<String, RouteKey> keys = new HashMap<>(table.size() * 4 / 3 + 1);
+        RouteIndex oldIndex = routeIndex;
+        RouteIndex index = new RouteIndex(routeTable, Collections.unmodifiableMap(keys), routeHashTables);
+        for (String route : table.keySet()) {
+            RouteKey key = oldIndex.key(route);
+            if (key == null) {
+                key = RouteKey.parse(route);
+            }
+            keys.put(route, key);
+            if (key.isAbsolute()) {
+                index.put(key.getScheme(), key.getAuthority(), key.getPath(), route);
+            }
+        }
+        AptHub.routeTable = routeTable;
+        routeIndex = index;
+        if (clearCache) {
+            routeCache.clear();
+        }
     }
 
     private static void validateModuleName(String... modules) {
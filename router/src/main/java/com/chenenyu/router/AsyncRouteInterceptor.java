@@ -0,0 +1,35 @@
+package com.chenenyu.router;
+
+/**
+ * Interceptor that may decide later, e.g. after a disk or IPC check.
+ * <p>
+ * When navigating by {@link IRouter#goAsync(android.content.Context, java.util.concurrent.Executor,
+ * RouteListener)}, interceptors run on the executor, and {@link #intercept(Object, RouteRequest, Chain)}
+ * is called instead of {@link #intercept(Object, RouteRequest)}. Other ways of navigation are
+ * synchronous, they still call {@link #intercept(Object, RouteRequest)}.
+ */
+public interface AsyncRouteInterceptor extends RouteInterceptor {
+    /**
+     * Call {@link Chain#proceed()} or {@link Chain#abort()} exactly once, from any thread and at any time.
+     *
+     * @param source       Context instance
+     * @param routeRequest RouteRequest
+     * @param chain        continuation of the navigation
+     */
+    void intercept(Object source, RouteRequest routeRequest, Chain chain);
+
+    /**
+     * Continuation of an asynchronous navigation.
+     */
+    interface Chain {
+        /**
+         * Go on with the next interceptor, or start the activity if this is the last one.
+         */
+        void proceed();
+
+        /**
+         * Intercept the navigation.
+         */
+        void abort();
+    }
+}
@@ -0,0 +1,13 @@
+package com.chenenyu.router;
+
+/**
+ * Interceptor whose decision only depends on the target, e.g. auth or region gating.
+ * Once it passes a target, it isn't called for that target again until the ttl expires
+ * or {@link Router#getInterceptorCache()} is invalidated.
+ */
+public interface CacheableInterceptor extends RouteInterceptor {
+    /**
+     * @return How long a pass is valid, in milliseconds. 0 or less disables caching.
+     */
+    long getCacheTtl();
+}
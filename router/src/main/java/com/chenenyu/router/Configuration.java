@@ -1,5 +1,10 @@
 package com.chenenyu.router;
 
+import android.content.Context;
+
+import com.chenenyu.router.matcher.ImplicitMatcher;
+import com.chenenyu.router.template.ModuleRegistry;
+
 /**
  * Initialization.
  * <p>
@@ -8,6 +13,23 @@ package com.chenenyu.router;
 public class Configuration {
     boolean debuggable;
     String[] modules;
+    ModuleRegistry moduleRegistry;
+    boolean lazyRouteGroups;
+    boolean deferTargetLoading;
+    int registrationThreads;
+    long pendingRouteTimeout;
+    Context routeIndexContext;
+    int routeCacheSize;
+    ImplicitMatcher.Granularity implicitCacheGranularity;
+    Context prewarmContext;
+    String[] prewarmUris;
+    boolean preloadInterceptors;
+    String[] preloadRoutes;
+    long interceptorBudget;
+    InterceptorMonitor.Policy interceptorBudgetPolicy;
+    long mainThreadWatchdog;
+
+    static final long DEFAULT_PENDING_ROUTE_TIMEOUT = 3000;
 
     private Configuration() {
     }
@@ -15,6 +37,21 @@ public class Configuration {
     public static class Builder {
         private boolean debuggable;
         private String[] modules;
+        private ModuleRegistry moduleRegistry;
+        private boolean lazyRouteGroups;
+        private boolean deferTargetLoading;
+        private int registrationThreads;
+        private long pendingRouteTimeout = DEFAULT_PENDING_ROUTE_TIMEOUT;
+        private Context routeIndexContext;
+        private int routeCacheSize = RouteCache.DEFAULT_MAX_SIZE;
+        private ImplicitMatcher.Granularity implicitCacheGranularity = ImplicitMatcher.Granularity.URI;
+        private Context prewarmContext;
+        private String[] prewarmUris;
+        private boolean preloadInterceptors;
+        private String[] preloadRoutes;
+        private long interceptorBudget;
+        private InterceptorMonitor.Policy interceptorBudgetPolicy = InterceptorMonitor.Policy.REPORT;
+        private long mainThreadWatchdog;
 
         public Builder setDebuggable(boolean debuggable) {
             this.debuggable = debuggable;
@@ -26,13 +63,181 @@ public class Configuration {
             return this;
         }
 
+        /**
+         * Register all modules by the registry generated at compile time, instead of
+         * {@link #registerModules(String...)}. Set the annotation processor option
+         * <code>moduleRegistry</code> to true in the app module to generate it, and it aggregates
+         * the tables of all modules on the classpath.
+         *
+         * @param registry such as <code>new AppModuleRegistry()</code>.
+         */
+        public Builder setModuleRegistry(ModuleRegistry registry) {
+            this.moduleRegistry = registry;
+            return this;
+        }
+
+        /**
+         * Register only the route groups of modules, and load the routes of a group the first time
+         * a uri in it is resolved. A group is <code>scheme://authority</code>, or the first path segment
+         * of relative routes.
+         * <p>
+         * Custom indexed matchers must only look up routes in the group of the uri, matchers that
+         * aren't indexed load all groups. With {@link #setDeferTargetLoading(boolean)}, a uri that equals
+         * a path is found in the perfect hash tables generated at compile time, without loading its group,
+         * so custom matchers before {@link com.chenenyu.router.matcher.DirectMatcher} may not see the group.
+         * Without both options, all routes are still put into the route table when they're registered.
+         *
+         * @see com.chenenyu.router.template.RouteGroups
+         */
+        public Builder setLazyRouteGroups(boolean lazyRouteGroups) {
+            this.lazyRouteGroups = lazyRouteGroups;
+            return this;
+        }
+
+        /**
+         * Register route targets by class names, instead of loading every target class when the tables
+         * are registered. Activities are started by {@link android.content.ComponentName} without loading
+         * their classes, fragment classes are loaded when they're resolved.
+         * <p>
+         * Class names of fragments must be kept if the app is obfuscated.
+         *
+         * @see RouteTarget
+         */
+        public Builder setDeferTargetLoading(boolean deferTargetLoading) {
+            this.deferTargetLoading = deferTargetLoading;
+            return this;
+        }
+
+        /**
+         * Load the tables of modules concurrently, then merge them in the order they're registered,
+         * later modules override duplicate paths of former ones. Routes issued from other threads
+         * meanwhile wait until the merge is done.
+         *
+         * @param threads max threads to load modules, 1 or less loads them on the calling thread.
+         * @see Router#getModuleTimings()
+         */
+        public Builder setParallelRegistration(int threads) {
+            this.registrationThreads = threads;
+            return this;
+        }
+
+        /**
+         * How long navigations issued before {@link Router#initializeAsync(Configuration)} is ready may be
+         * queued, 3 seconds by default.
+         *
+         * @param timeoutMillis 0 keeps them queued until ready.
+         * @see RouterReadiness
+         */
+        public Builder setPendingRouteTimeout(long timeoutMillis) {
+            this.pendingRouteTimeout = timeoutMillis;
+            return this;
+        }
+
+        /**
+         * Look up routes in the indexes memory-mapped from assets, instead of the arrays of generated
+         * tables. The indexes are written by the compiler with option <code>routeAssetDir</code>, and
+         * must be stored uncompressed: <code>aaptOptions { noCompress "rtx" }</code>. Modules with a valid
+         * index load neither routes nor targets' interceptors at registration, their route groups are loaded
+         * on first use like {@link #setLazyRouteGroups(boolean)}, except that a uri that equals a path is
+         * answered by the index without loading its group. Modules without one fall back to their
+         * generated tables.
+         *
+         * @see MappedRouteTable
+         */
+        public Builder setRouteIndexAssets(Context context) {
+            this.routeIndexContext = context.getApplicationContext();
+            return this;
+        }
+
+        /**
+         * Max count of resolved uris to cache, 0 disables the cache.
+         *
+         * @see RouteCache
+         */
+        public Builder setRouteCacheSize(int routeCacheSize) {
+            this.routeCacheSize = routeCacheSize;
+            return this;
+        }
+
+        /**
+         * Which part of the uri the implicit resolve results are cached by,
+         * {@link ImplicitMatcher.Granularity#URI} by default.
+         *
+         * @see ImplicitMatcher.Granularity
+         */
+        public Builder setImplicitCacheGranularity(ImplicitMatcher.Granularity granularity) {
+            this.implicitCacheGranularity = granularity;
+            return this;
+        }
+
+        /**
+         * Resolve the given implicit uris in background after initialized, so that the first route
+         * to them doesn't ask {@link android.content.pm.PackageManager} on main thread.
+         *
+         * @param uris such as "weixin://dl/business".
+         */
+        public Builder prewarmImplicitUris(Context context, String... uris) {
+            this.prewarmContext = context.getApplicationContext();
+            this.prewarmUris = uris;
+            return this;
+        }
+
+        /**
+         * Create the interceptors of the given routes in background after initialized, so that
+         * the first route to them doesn't create interceptors on main thread.
+         *
+         * @param routes hot paths in route table, interceptors of all routes are preloaded if none is given.
+         */
+        public Builder preloadInterceptors(String... routes) {
+            this.preloadInterceptors = true;
+            this.preloadRoutes = routes == null || routes.length == 0 ? null : routes;
+            return this;
+        }
+
+        /**
+         * Max time an interceptor may take, and what to do when it goes over.
+         *
+         * @param budgetMillis 0 for no budget.
+         * @see InterceptorMonitor
+         */
+        public Builder setInterceptorBudget(long budgetMillis, InterceptorMonitor.Policy policy) {
+            this.interceptorBudget = budgetMillis;
+            this.interceptorBudgetPolicy = policy;
+            return this;
+        }
+
+        /**
+         * Report interceptors that block main thread longer than the given time, for debug builds.
+         *
+         * @param watchdogMillis 0 disables it.
+         */
+        public Builder setMainThreadWatchdog(long watchdogMillis) {
+            this.mainThreadWatchdog = watchdogMillis;
+            return this;
+        }
+
         public Configuration build() {
-            if (modules == null || modules.length == 0) {
-                throw new RuntimeException("You must call registerModules() to initialize Router.");
+            if ((modules == null || modules.length == 0) && moduleRegistry == null) {
+                throw new RuntimeException("You must call registerModules() or setModuleRegistry() to initialize Router.");
             }
             Configuration configuration = new Configuration();
             configuration.debuggable = this.debuggable;
             configuration.modules = this.modules;
+            configuration.moduleRegistry = this.moduleRegistry;
+            configuration.lazyRouteGroups = this.lazyRouteGroups;
+            configuration.deferTargetLoading = this.deferTargetLoading;
+            configuration.registrationThreads = this.registrationThreads;
+            configuration.pendingRouteTimeout = this.pendingRouteTimeout;
+            configuration.routeIndexContext = this.routeIndexContext;
+            configuration.routeCacheSize = this.routeCacheSize;
+            configuration.implicitCacheGranularity = this.implicitCacheGranularity;
+            configuration.prewarmContext = this.prewarmContext;
+            configuration.prewarmUris = this.prewarmUris;
+            configuration.preloadInterceptors = this.preloadInterceptors;
+            configuration.preloadRoutes = this.preloadRoutes;
+            configuration.interceptorBudget = this.interceptorBudget;
+            configuration.interceptorBudgetPolicy = this.interceptorBudgetPolicy;
+            configuration.mainThreadWatchdog = this.mainThreadWatchdog;
             return configuration;
         }
     }
@@ -0,0 +1,171 @@
+package com.chenenyu.router;
+
+import android.net.Uri;
+import android.support.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Immutable snapshot of global interceptors sorted by priority, indexed by the schemes and hosts
+ * of their scopes, so that a route only gets the interceptors that apply to its uri.
+ */
+final class GlobalInterceptors {
+    static final GlobalInterceptors EMPTY = new GlobalInterceptors(new Entry[0]);
+
+    // sorted by priority
+    private final Entry[] entries;
+    private final List<RouteInterceptor> interceptors;
+    // schemes and hosts declared by scopes, lower case
+    private final String[] schemes;
+    private final String[] hosts;
+    // [scheme index, or schemes.length for others][host index, or hosts.length for others]
+    private final Bucket[][] buckets;
+
+    private GlobalInterceptors(Entry[] entries) {
+        this.entries = entries;
+        List<RouteInterceptor> interceptors = new ArrayList<>(entries.length);
+        Set<String> schemes = new LinkedHashSet<>();
+        Set<String> hosts = new LinkedHashSet<>();
+        for (Entry entry : entries) {
+            interceptors.add(entry.interceptor);
+            if (entry.scope.scheme != null) {
+                schemes.add(entry.scope.scheme);
+            }
+            if (entry.scope.host != null) {
+                hosts.add(entry.scope.host);
+            }
+        }
+        this.interceptors = Collections.unmodifiableList(interceptors);
+        this.schemes = schemes.toArray(new String[schemes.size()]);
+        this.hosts = hosts.toArray(new String[hosts.size()]);
+        this.buckets = new Bucket[this.schemes.length + 1][this.hosts.length + 1];
+        for (int i = 0; i <= this.schemes.length; i++) {
+            for (int j = 0; j <= this.hosts.length; j++) {
+                buckets[i][j] = new Bucket(entries,
+                        i < this.schemes.length ? this.schemes[i] : null,
+                        j < this.hosts.length ? this.hosts[j] : null);
+            }
+        }
+    }
+
+    /**
+     * @return A new snapshot with the given interceptor inserted after the ones with higher or equal priority.
+     */
+    GlobalInterceptors with(RouteInterceptor interceptor, int priority, InterceptorScope scope) {
+        int index = 0;
+        while (index < entries.length && entries[index].priority >= priority) {
+            index++;
+        }
+        Entry[] newEntries = new Entry[entries.length + 1];
+        System.arraycopy(entries, 0, newEntries, 0, index);
+        newEntries[index] = new Entry(interceptor, priority, scope);
+        System.arraycopy(entries, index, newEntries, index + 1, entries.length - index);
+        return new GlobalInterceptors(newEntries);
+    }
+
+    /**
+     * @return A new snapshot without the given interceptor, or this if it's not here.
+     */
+    GlobalInterceptors without(RouteInterceptor interceptor) {
+        int index = interceptors.indexOf(interceptor);
+        if (index < 0) {
+            return this;
+        }
+        Entry[] newEntries = new Entry[entries.length - 1];
+        System.arraycopy(entries, 0, newEntries, 0, index);
+        System.arraycopy(entries, index + 1, newEntries, index, entries.length - index - 1);
+        return new GlobalInterceptors(newEntries);
+    }
+
+    /**
+     * All global interceptors sorted by priority.
+     */
+    List<RouteInterceptor> all() {
+        return interceptors;
+    }
+
+    /**
+     * Interceptors that apply to the given uri, sorted by priority. The array is shared if
+     * no path prefix is involved, don't change it.
+     */
+    RouteInterceptor[] select(Uri uri) {
+        Bucket bucket = buckets[indexOf(schemes, uri.getScheme())][indexOf(hosts, uri.getHost())];
+        if (!bucket.hasPathPrefix) {
+            return bucket.interceptors;
+        }
+        String path = uri.getPath();
+        List<RouteInterceptor> selected = new ArrayList<>(bucket.interceptors.length);
+        for (int i = 0; i < bucket.interceptors.length; i++) {
+            if (bucket.scopes[i].matchPath(path)) {
+                selected.add(bucket.interceptors[i]);
+            }
+        }
+        return selected.toArray(new RouteInterceptor[selected.size()]);
+    }
+
+    private static int indexOf(String[] array, @Nullable String str) {
+        if (str != null) {
+            for (int i = 0; i < array.length; i++) {
+                if (array[i].equalsIgnoreCase(str)) {
+                    return i;
+                }
+            }
+        }
+        return array.length;
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(entries);
+    }
+
+    private static class Entry {
+        final RouteInterceptor interceptor;
+        final int priority;
+        final InterceptorScope scope;
+
+        Entry(RouteInterceptor interceptor, int priority, InterceptorScope scope) {
+            this.interceptor = interceptor;
+            this.priority = priority;
+            this.scope = scope;
+        }
+
+        @Override
+        public String toString() {
+            return interceptor.getClass().getSimpleName() + "(" + priority + ", " + scope + ")";
+        }
+    }
+
+    /**
+     * Interceptors for a scheme and a host, null means other schemes or hosts.
+     */
+    private static class Bucket {
+        final RouteInterceptor[] interceptors;
+        final InterceptorScope[] scopes;
+        final boolean hasPathPrefix;
+
+        Bucket(Entry[] entries, @Nullable String scheme, @Nullable String host) {
+            List<Entry> matched = new ArrayList<>();
+            boolean hasPathPrefix = false;
+            for (Entry entry : entries) {
+                if ((entry.scope.scheme == null || entry.scope.scheme.equals(scheme))
+                        && (entry.scope.host == null || entry.scope.host.equals(host))) {
+                    matched.add(entry);
+                    hasPathPrefix |= entry.scope.pathPrefix != null;
+                }
+            }
+            this.interceptors = new RouteInterceptor[matched.size()];
+            this.scopes = new InterceptorScope[matched.size()];
+            for (int i = 0; i < matched.size(); i++) {
+                interceptors[i] = matched.get(i).interceptor;
+                scopes[i] = matched.get(i).scope;
+            }
+            this.hasPathPrefix = hasPathPrefix;
+        }
+    }
+}
@@ -7,10 +7,13 @@ import android.net.Uri;
 import android.os.Bundle;
 import android.os.PersistableBundle;
 import android.support.annotation.AnimRes;
+import android.support.annotation.Nullable;
 import android.support.annotation.RequiresApi;
 import android.support.v4.app.ActivityOptionsCompat;
 import android.support.v4.app.Fragment;
 
+import java.util.concurrent.Executor;
+
 /**
  * Router interface.
  * <p>
@@ -99,7 +102,7 @@ public interface IRouter {
     IRouter addInterceptors(String... interceptors);
 
     /**
-     * Get an intent instance.
+     * Get an intent instance. Before {@link Router#initializeAsync(Configuration)} is ready, null is returned.
      *
      * @param source Activity or Fragment instance.
      * @return {@link Intent} instance.
@@ -107,7 +110,7 @@ public interface IRouter {
     Intent getIntent(Object source);
 
     /**
-     * Get a fragment instance.
+     * Get a fragment instance. Before {@link Router#initializeAsync(Configuration)} is ready, null is returned.
      *
      * @param source Activity or Fragment instance.
      * @return {@link Fragment} or {@link android.app.Fragment} instance.
@@ -116,5 +119,28 @@ public interface IRouter {
 
     boolean go(Context context, RouteCallback callback);
 
+    /**
+     * Start the activity. Before {@link Router#initializeAsync(Configuration)} is ready, it's queued
+     * and true is returned.
+     *
+     * @param context Context instance.
+     * @return True if started or queued.
+     */
     boolean go(Context context);
+
+    /**
+     * Same as {@link #goAsync(Context, Executor, RouteListener)} with the thread pool of
+     * {@link android.os.AsyncTask} and no listener.
+     */
+    void goAsync(Context context);
+
+    /**
+     * Run interceptors and resolve the uri on the given executor, then start the activity on main thread.
+     * {@link AsyncRouteInterceptor}s may resume or abort the navigation later.
+     *
+     * @param context  Context instance.
+     * @param executor executor that runs interceptors and matchers.
+     * @param listener notified of the result on main thread, nullable.
+     */
+    void goAsync(Context context, Executor executor, @Nullable RouteListener listener);
 }
@@ -0,0 +1,124 @@
+package com.chenenyu.router;
+
+import android.os.SystemClock;
+import android.support.annotation.Nullable;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of interceptor decisions: (interceptor, target) -> passed until a deadline.
+ * <p>
+ * Only interceptors that implement {@link CacheableInterceptor} are cached. Only passes are
+ * cached, an interceptor that intercepts is called every time, so that it can redirect,
+ * e.g. open the login page. Call {@link #invalidate(String)} or {@link #clear()} when the answer
+ * changes, e.g. on logout.
+ */
+public class InterceptorCache {
+    // interceptor -> class name of target -> deadline of elapsedRealtime
+    private final ConcurrentMap<RouteInterceptor, ConcurrentMap<String, Long>> passes = new ConcurrentHashMap<>();
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+
+    InterceptorCache() {
+    }
+
+    /**
+     * Whether the interceptor passed the target within its ttl, so it needn't be called.
+     */
+    boolean isPassed(RouteInterceptor interceptor, @Nullable String target) {
+        if (target == null || !(interceptor instanceof CacheableInterceptor)) {
+            return false;
+        }
+        Map<String, Long> targets = passes.get(interceptor);
+        Long deadline = targets == null ? null : targets.get(target);
+        if (deadline != null && deadline > SystemClock.elapsedRealtime()) {
+            hitCount.incrementAndGet();
+            return true;
+        }
+        missCount.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Record that the interceptor passed the target.
+     */
+    void putPassed(RouteInterceptor interceptor, @Nullable String target) {
+        if (target == null || !(interceptor instanceof CacheableInterceptor)) {
+            return;
+        }
+        long ttl = ((CacheableInterceptor) interceptor).getCacheTtl();
+        if (ttl <= 0) {
+            return;
+        }
+        ConcurrentMap<String, Long> targets = passes.get(interceptor);
+        if (targets == null) {
+            targets = new ConcurrentHashMap<>();
+            ConcurrentMap<String, Long> existing = passes.putIfAbsent(interceptor, targets);
+            if (existing != null) {
+                targets = existing;
+            }
+        }
+        targets.put(target, SystemClock.elapsedRealtime() + ttl);
+    }
+
+    /**
+     * Forget the decisions of the named interceptor.
+     */
+    public void invalidate(String name) {
+        RouteInterceptor interceptor = AptHub.interceptorInstances.get(name);
+        if (interceptor != null) {
+            invalidate(interceptor);
+        }
+    }
+
+    /**
+     * Forget the decision of the named interceptor for the given target.
+     */
+    public void invalidate(String name, Class<?> target) {
+        RouteInterceptor interceptor = AptHub.interceptorInstances.get(name);
+        Map<String, Long> targets = interceptor == null ? null : passes.get(interceptor);
+        if (targets != null) {
+            targets.remove(target.getName());
+        }
+    }
+
+    /**
+     * Forget the decisions of the given interceptor.
+     */
+    public void invalidate(RouteInterceptor interceptor) {
+        passes.remove(interceptor);
+    }
+
+    /**
+     * Forget all decisions.
+     */
+    public void clear() {
+        passes.clear();
+    }
+
+    /**
+     * Returns the number of times that a cacheable interceptor was skipped by a cached pass.
+     */
+    public long hitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * Returns the number of times that a cacheable interceptor had to be called.
+     */
+    public long missCount() {
+        return missCount.get();
+    }
+
+    @Override
+    public String toString() {
+        long hits = hitCount.get();
+        long accesses = hits + missCount.get();
+        long hitPercent = accesses != 0 ? (100 * hits / accesses) : 0;
+        return String.format("InterceptorCache[interceptors=%d,hits=%d,misses=%d,hitRate=%d%%]",
+                passes.size(), hits, accesses - hits, hitPercent);
+    }
+}
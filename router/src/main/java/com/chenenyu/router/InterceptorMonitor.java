@@ -0,0 +1,257 @@
+package com.chenenyu.router;
+
+import android.os.Looper;
+import android.support.annotation.Nullable;
+
+import com.chenenyu.router.util.RLog;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Times every global and target interceptor, and reports the ones that go over the budget.
+ * <p>
+ * A synchronous interceptor can't be stopped, so it's judged after it returns: with
+ * {@link Policy#FAIL_OPEN} its decision is ignored and the route goes on, with
+ * {@link Policy#FAIL_CLOSED} the route is intercepted. An {@link AsyncRouteInterceptor} that doesn't
+ * continue within the budget is resumed or aborted by the policy, its late answer is ignored.
+ * <p>
+ * The main thread watchdog is meant for debug builds, it reports interceptors that block main thread
+ * longer than the given time, whatever the budget is.
+ */
+public class InterceptorMonitor {
+    /**
+     * What to do with an interceptor that goes over the budget.
+     */
+    public enum Policy {
+        /**
+         * Only report it, keep its decision.
+         */
+        REPORT,
+        /**
+         * Report it and let the route go on.
+         */
+        FAIL_OPEN,
+        /**
+         * Report it and intercept the route.
+         */
+        FAIL_CLOSED
+    }
+
+    /**
+     * Decision of a synchronous interceptor, after it's judged by the budget.
+     */
+    enum Decision {
+        /**
+         * It passed within the budget.
+         */
+        PASSED(false),
+        /**
+         * It passed, but over the budget, and the policy kept its decision.
+         */
+        PASSED_SLOWLY(false),
+        /**
+         * It intercepted the route, but over the budget, and {@link Policy#FAIL_OPEN} let it go on.
+         */
+        FORCED_PASS(false),
+        /**
+         * It intercepted the route.
+         */
+        INTERCEPTED(true),
+        /**
+         * It's over the budget, and {@link Policy#FAIL_CLOSED} intercepted the route.
+         */
+        FORCED_INTERCEPT(true);
+
+        private final boolean intercepted;
+
+        Decision(boolean intercepted) {
+            this.intercepted = intercepted;
+        }
+
+        /**
+         * @return True if the route is intercepted.
+         */
+        boolean isIntercepted() {
+            return intercepted;
+        }
+
+        /**
+         * @return True if the interceptor itself passed within the budget, so that the pass can be cached.
+         */
+        boolean isCacheable() {
+            return this == PASSED;
+        }
+    }
+
+    /**
+     * Listener of slow interceptors, it's called on the thread that ran the interceptor.
+     */
+    public interface Listener {
+        /**
+         * @param interceptor  the slow interceptor
+         * @param routeRequest RouteRequest
+         * @param costMillis   how long it took
+         * @param mainThread   whether it ran on main thread
+         */
+        void onSlowInterceptor(RouteInterceptor interceptor, RouteRequest routeRequest, long costMillis,
+                               boolean mainThread);
+    }
+
+    /**
+     * Accumulated timing of an interceptor class.
+     */
+    public static class Timing {
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong totalNanos = new AtomicLong();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        void add(long nanos) {
+            count.incrementAndGet();
+            totalNanos.addAndGet(nanos);
+            long max;
+            while (nanos > (max = maxNanos.get()) && !maxNanos.compareAndSet(max, nanos)) {
+                // retry
+            }
+        }
+
+        public long count() {
+            return count.get();
+        }
+
+        public long totalMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(totalNanos.get());
+        }
+
+        public long maxMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(maxNanos.get());
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Timing[count=%d,total=%dms,max=%dms]", count(), totalMillis(), maxMillis());
+        }
+    }
+
+    private volatile long budgetMillis;
+    private volatile Policy policy = Policy.REPORT;
+    private volatile long watchdogMillis;
+    @Nullable
+    private volatile Listener listener;
+    private final ConcurrentMap<Class<?>, Timing> timings = new ConcurrentHashMap<>();
+
+    InterceptorMonitor() {
+    }
+
+    /**
+     * @param budgetMillis max time an interceptor may take, 0 for no budget.
+     * @param policy       what to do when an interceptor goes over it.
+     */
+    public void setBudget(long budgetMillis, Policy policy) {
+        this.budgetMillis = budgetMillis;
+        this.policy = policy == null ? Policy.REPORT : policy;
+    }
+
+    public long getBudgetMillis() {
+        return budgetMillis;
+    }
+
+    public Policy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * @param watchdogMillis report interceptors that block main thread longer than it, 0 disables it.
+     */
+    public void setMainThreadWatchdog(long watchdogMillis) {
+        this.watchdogMillis = watchdogMillis;
+    }
+
+    public void setListener(@Nullable Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * @return Timing of the interceptor class, or null if it has never run.
+     */
+    @Nullable
+    public Timing getTiming(Class<? extends RouteInterceptor> interceptor) {
+        return timings.get(interceptor);
+    }
+
+    /**
+     * Timings of all interceptor classes that have run.
+     */
+    public Map<Class<?>, Timing> getTimings() {
+        return timings;
+    }
+
+    public void reset() {
+        timings.clear();
+    }
+
+    /**
+     * Call the synchronous interceptor and judge it by the budget.
+     *
+     * @return The decision, which tells the interceptor's own decision from the one forced by the policy.
+     */
+    Decision intercept(RouteInterceptor interceptor, Object source, RouteRequest routeRequest) {
+        long start = System.nanoTime();
+        boolean intercepted = interceptor.intercept(source, routeRequest);
+        long costMillis = record(interceptor, routeRequest, System.nanoTime() - start);
+        long budget = budgetMillis;
+        if (budget > 0 && costMillis > budget) {
+            switch (policy) {
+                case FAIL_OPEN:
+                    return intercepted ? Decision.FORCED_PASS : Decision.PASSED_SLOWLY;
+                case FAIL_CLOSED:
+                    return intercepted ? Decision.INTERCEPTED : Decision.FORCED_INTERCEPT;
+                default:
+                    return intercepted ? Decision.INTERCEPTED : Decision.PASSED_SLOWLY;
+            }
+        }
+        return intercepted ? Decision.INTERCEPTED : Decision.PASSED;
+    }
+
+    /**
+     * Record the time an interceptor took, and report it if it's slow.
+     *
+     * @return The time in milliseconds.
+     */
+    long record(RouteInterceptor interceptor, RouteRequest routeRequest, long nanos) {
+        Timing timing = timings.get(interceptor.getClass());
+        if (timing == null) {
+            timing = new Timing();
+            Timing existing = timings.putIfAbsent(interceptor.getClass(), timing);
+            if (existing != null) {
+                timing = existing;
+            }
+        }
+        timing.add(nanos);
+        long costMillis = TimeUnit.NANOSECONDS.toMillis(nanos);
+        long budget = budgetMillis;
+        long watchdog = watchdogMillis;
+        boolean mainThread = Looper.myLooper() == Looper.getMainLooper();
+        boolean overBudget = budget > 0 && costMillis > budget;
+        boolean blocking = watchdog > 0 && mainThread && costMillis > watchdog;
+        if (overBudget || blocking) {
+            RLog.w(String.format("Slow interceptor %s took %dms%s, uri: %s",
+                    interceptor.getClass().getName(), costMillis,
+                    blocking ? " on main thread" : "", routeRequest.getUri()));
+            Listener listener = this.listener;
+            if (listener != null) {
+                listener.onSlowInterceptor(interceptor, routeRequest, costMillis, mainThread);
+            }
+        }
+        return costMillis;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("InterceptorMonitor[budget=%dms,policy=%s,watchdog=%dms,timings=%s]",
+                budgetMillis, policy, watchdogMillis, timings);
+    }
+}
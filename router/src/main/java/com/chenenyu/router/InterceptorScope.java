@@ -0,0 +1,71 @@
+package com.chenenyu.router;
+
+import android.support.annotation.Nullable;
+
+/**
+ * Uris that a global interceptor applies to. Null parts match anything, scheme and host are
+ * compared ignoring case.
+ */
+public class InterceptorScope {
+    /**
+     * Applies to all uris.
+     */
+    public static final InterceptorScope ALL = new InterceptorScope(null, null, null);
+
+    @Nullable
+    final String scheme;
+    @Nullable
+    final String host;
+    @Nullable
+    final String pathPrefix;
+
+    /**
+     * @param scheme     such as "app", null for any scheme.
+     * @param host       such as "user", null for any host.
+     * @param pathPrefix such as "/profile", null for any path. It's matched by whole segments, so it
+     *                   matches "/profile" and "/profile/edit", but not "/profiles".
+     */
+    public InterceptorScope(@Nullable String scheme, @Nullable String host, @Nullable String pathPrefix) {
+        this.scheme = isEmpty(scheme) ? null : scheme.toLowerCase();
+        this.host = isEmpty(host) ? null : host.toLowerCase();
+        int end = pathPrefix == null ? 0 : pathPrefix.length();
+        while (end > 0 && pathPrefix.charAt(end - 1) == '/') {
+            end--;
+        }
+        if (end == 0) {
+            this.pathPrefix = null;
+        } else {
+            this.pathPrefix = pathPrefix.charAt(0) == '/' ? pathPrefix.substring(0, end)
+                    : '/' + pathPrefix.substring(0, end);
+        }
+    }
+
+    public static InterceptorScope scheme(String scheme) {
+        return new InterceptorScope(scheme, null, null);
+    }
+
+    public static InterceptorScope host(String scheme, String host) {
+        return new InterceptorScope(scheme, host, null);
+    }
+
+    /**
+     * Whether the path of uri starts with the segments of {@link #pathPrefix}.
+     */
+    boolean matchPath(@Nullable String path) {
+        if (pathPrefix == null) {
+            return true;
+        }
+        return path != null && path.startsWith(pathPrefix)
+                && (path.length() == pathPrefix.length() || path.charAt(pathPrefix.length()) == '/');
+    }
+
+    private static boolean isEmpty(String str) {
+        return str == null || str.length() == 0;
+    }
+
+    @Override
+    public String toString() {
+        return (scheme == null ? "*" : scheme) + "://" + (host == null ? "*" : host)
+                + (pathPrefix == null ? "" : pathPrefix + "/") + "*";
+    }
+}
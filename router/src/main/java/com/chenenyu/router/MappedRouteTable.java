@@ -0,0 +1,209 @@
+package com.chenenyu.router;
+
+import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+import android.support.annotation.Nullable;
+
+import com.chenenyu.router.template.RouteHashTable;
+import com.chenenyu.router.util.PerfectHash;
+import com.chenenyu.router.util.RLog;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+
+/**
+ * Route table read from a binary index that is memory-mapped from assets. Lookups are answered from
+ * the mapped bytes: paths are found by the perfect hash of the index and compared byte by byte, only
+ * the found target and interceptors are decoded.
+ * <p>
+ * The index must be stored uncompressed, e.g. <code>aaptOptions { noCompress "rtx" }</code>.
+ * It's written by the compiler with option <code>routeAssetDir</code>, see
+ * <code>com.chenenyu.router.compiler.util.RouteIndexWriter</code> for the layout.
+ */
+public final class MappedRouteTable implements RouteHashTable {
+    static final int MAGIC = 0x52545831; // RTX1
+    static final int VERSION = 1;
+    private static final int HEADER_SIZE = 20;
+    private static final int ENTRY_SIZE = 16;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final String[] NO_INTERCEPTORS = new String[0];
+
+    private final ByteBuffer buffer;
+    private final int count;
+    private final int entries;
+
+    /**
+     * @param buffer index whose header has been checked.
+     */
+    MappedRouteTable(ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.count = buffer.getInt(16);
+        this.entries = HEADER_SIZE + count * 4;
+    }
+
+    /**
+     * Map the index in assets and check it against the generated table.
+     *
+     * @param asset       name of the index in assets.
+     * @param fingerprint fingerprint kept by the generated table.
+     * @return The table, or null if the index is missing, compressed or stale.
+     */
+    @Nullable
+    static MappedRouteTable open(Context context, String asset, long fingerprint) {
+        AssetFileDescriptor afd = null;
+        FileInputStream in = null;
+        try {
+            afd = context.getAssets().openFd(asset);
+            in = new FileInputStream(afd.getFileDescriptor());
+            ByteBuffer buffer = in.getChannel().map(FileChannel.MapMode.READ_ONLY,
+                    afd.getStartOffset(), afd.getLength());
+            return check(buffer, fingerprint) ? new MappedRouteTable(buffer) : null;
+        } catch (IOException e) {
+            RLog.w(String.format("Can't map route index %s, is it compressed? %s", asset, e));
+            return null;
+        } finally {
+            // the mapping stays valid after the file is closed.
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException ignored) {
+                }
+            }
+            // AssetFileDescriptor is Closeable only since api 19.
+            if (afd != null) {
+                try {
+                    afd.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    /**
+     * Whether the buffer is an index of this version with the given fingerprint.
+     */
+    static boolean check(ByteBuffer buffer, long fingerprint) {
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            RLog.w("Not a route index.");
+            return false;
+        }
+        if (buffer.getInt(4) != VERSION) {
+            RLog.w(String.format("Route index version %d isn't supported, expected %d.", buffer.getInt(4), VERSION));
+            return false;
+        }
+        if (buffer.getLong(8) != fingerprint) {
+            RLog.w("Route index doesn't match the generated route table, rebuild it.");
+            return false;
+        }
+        int count = buffer.getInt(16);
+        return count >= 0 && buffer.capacity() >= HEADER_SIZE + (long) count * (4 + ENTRY_SIZE);
+    }
+
+    @Override
+    public int indexOf(String path) {
+        if (count == 0) {
+            return -1;
+        }
+        int seed = buffer.getInt(HEADER_SIZE + PerfectHash.hash(path, 0) % count * 4);
+        int slot = seed < 0 ? -seed - 1 : PerfectHash.hash(path, seed) % count;
+        return equals(buffer.getInt(entries + slot * ENTRY_SIZE), path) ? slot : -1;
+    }
+
+    @Override
+    public RouteTarget getTarget(int slot) {
+        int entry = entries + slot * ENTRY_SIZE;
+        String name = readString(buffer.getInt(entry + 4));
+        switch (buffer.getInt(entry + 12)) {
+            case 'a':
+                return RouteTarget.activity(name);
+            case 's':
+                return RouteTarget.supportFragment(name);
+            default:
+                return RouteTarget.fragment(name);
+        }
+    }
+
+    /**
+     * @return The path in the slot.
+     */
+    public String getPath(int slot) {
+        return readString(buffer.getInt(entries + slot * ENTRY_SIZE));
+    }
+
+    /**
+     * @return Interceptors of the target in the slot, sorted by priority.
+     */
+    public String[] getInterceptors(int slot) {
+        int offset = buffer.getInt(entries + slot * ENTRY_SIZE + 8);
+        if (offset < 0) {
+            return NO_INTERCEPTORS;
+        }
+        String[] interceptors = new String[buffer.getShort(offset) & 0xffff];
+        for (int i = 0; i < interceptors.length; i++) {
+            interceptors[i] = readString(buffer.getInt(offset + 2 + i * 4));
+        }
+        return interceptors;
+    }
+
+    /**
+     * Count of paths.
+     */
+    public int size() {
+        return count;
+    }
+
+    private String readString(int offset) {
+        byte[] bytes = new byte[buffer.getShort(offset) & 0xffff];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(offset + 2 + i);
+        }
+        return new String(bytes, UTF_8);
+    }
+
+    /**
+     * Compare the utf-8 string at the offset with the given string, without decoding it or encoding
+     * the string into a temporary array.
+     */
+    private boolean equals(int offset, String str) {
+        int length = buffer.getShort(offset) & 0xffff;
+        int pos = offset + 2;
+        int end = pos + length;
+        for (int i = 0, size = str.length(); i < size; i++) {
+            int c = str.charAt(i);
+            if (c < 0x80) {
+                if (pos >= end || buffer.get(pos++) != c) {
+                    return false;
+                }
+                continue;
+            }
+            int cp = c;
+            int trailing;
+            if (c < 0x800) {
+                trailing = 1;
+            } else if (Character.isHighSurrogate((char) c) && i + 1 < size
+                    && Character.isLowSurrogate(str.charAt(i + 1))) {
+                cp = Character.toCodePoint((char) c, str.charAt(++i));
+                trailing = 3;
+            } else {
+                trailing = 2;
+            }
+            if (end - pos <= trailing) {
+                return false;
+            }
+            // lead byte: 110xxxxx, 1110xxxx or 11110xxx.
+            int lead = (trailing == 1 ? 0xc0 : trailing == 2 ? 0xe0 : 0xf0) | (cp >> (trailing * 6));
+            if (buffer.get(pos++) != (byte) lead) {
+                return false;
+            }
+            for (int shift = (trailing - 1) * 6; shift >= 0; shift -= 6) {
+                if (buffer.get(pos++) != (byte) (0x80 | ((cp >> shift) & 0x3f))) {
+                    return false;
+                }
+            }
+        }
+        return pos == end;
+    }
+}
@@ -1,5 +1,7 @@
 package com.chenenyu.router;
 
+import android.net.Uri;
+
 import com.chenenyu.router.matcher.AbsExplicitMatcher;
 import com.chenenyu.router.matcher.AbsImplicitMatcher;
 import com.chenenyu.router.matcher.AbsMatcher;
@@ -11,33 +13,41 @@ import com.chenenyu.router.util.RLog;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Matcher registry.
+ * <p>
+ * Matcher lists are unmodifiable snapshots, {@link #register(AbsMatcher)} and {@link #clear()}
+ * build new lists and swap them in, so they can be read from any thread without locks.
  * <br>
  * Created by chenenyu on 2017/1/5.
  */
 public class MatcherRegistry {
 
-    private static final List<AbsMatcher> ALL = new ArrayList<>();
-    private static final List<AbsExplicitMatcher> explicitMatcher = new ArrayList<>();
-    private static final List<AbsImplicitMatcher> implicitMatcher = new ArrayList<>();
+    private static volatile List<AbsMatcher> ALL = Collections.emptyList();
+    private static volatile List<AbsExplicitMatcher> explicitMatcher = Collections.emptyList();
+    private static volatile List<AbsImplicitMatcher> implicitMatcher = Collections.emptyList();
+    // matchers for each scheme declared by matchers, the last one is for other schemes and relative uris.
+    private static volatile Bucket[] buckets = {new Bucket(null)};
 
     static {
-        ALL.add(new DirectMatcher(0x1000));
-        ALL.add(new SchemeMatcher(0x0100));
-        ALL.add(new ImplicitMatcher(0x0010));
-        ALL.add(new BrowserMatcher(0x0000));
-        Collections.sort(ALL);
-        classifyMatcher();
+        List<AbsMatcher> matchers = new ArrayList<>();
+        matchers.add(new DirectMatcher(0x1000));
+        matchers.add(new SchemeMatcher(0x0100));
+        matchers.add(new ImplicitMatcher(0x0010));
+        matchers.add(new BrowserMatcher(0x0000));
+        classifyMatcher(matchers);
     }
 
-    public static void register(AbsMatcher matcher) {
+    public synchronized static void register(AbsMatcher matcher) {
         if (matcher instanceof AbsExplicitMatcher || matcher instanceof AbsImplicitMatcher) {
-            ALL.add(matcher);
-            Collections.sort(ALL);
-            classifyMatcher();
+            List<AbsMatcher> matchers = new ArrayList<>(ALL);
+            matchers.add(matcher);
+            classifyMatcher(matchers);
+            AptHub.routeCache.clear();
         } else {
             RLog.e(String.format("%s must be a subclass of AbsExplicitMatcher or AbsImplicitMatcher",
                     matcher.getClass().getSimpleName()));
@@ -48,28 +58,136 @@ public class MatcherRegistry {
         return ALL;
     }
 
+    /**
+     * Matchers that can match the scheme of given uri, sorted by priority.
+     */
+    public static List<AbsMatcher> getMatcher(Uri uri) {
+        return bucketOf(uri).all;
+    }
+
     public static List<AbsExplicitMatcher> getExplicitMatcher() {
         return explicitMatcher;
     }
 
+    /**
+     * Explicit matchers that can match the scheme of given uri, sorted by priority.
+     */
+    public static List<AbsExplicitMatcher> getExplicitMatcher(Uri uri) {
+        return bucketOf(uri).explicit;
+    }
+
     public static List<AbsImplicitMatcher> getImplicitMatcher() {
         return implicitMatcher;
     }
 
-    public static void clear() {
-        ALL.clear();
-        explicitMatcher.clear();
-        implicitMatcher.clear();
+    public synchronized static void clear() {
+        classifyMatcher(new ArrayList<AbsMatcher>());
+        AptHub.routeCache.clear();
     }
 
-    private static void classifyMatcher() {
-        explicitMatcher.clear();
-        implicitMatcher.clear();
-        for (AbsMatcher absMatcher : ALL) {
+    /**
+     * Sort and classify the given matchers, then publish them.
+     */
+    private static void classifyMatcher(List<AbsMatcher> matchers) {
+        Collections.sort(matchers);
+        List<AbsExplicitMatcher> explicit = new ArrayList<>();
+        List<AbsImplicitMatcher> implicit = new ArrayList<>();
+        for (AbsMatcher absMatcher : matchers) {
             if (absMatcher instanceof AbsExplicitMatcher) {
-                explicitMatcher.add((AbsExplicitMatcher) absMatcher);
+                explicit.add((AbsExplicitMatcher) absMatcher);
             } else if (absMatcher instanceof AbsImplicitMatcher) {
-                implicitMatcher.add((AbsImplicitMatcher) absMatcher);
+                implicit.add((AbsImplicitMatcher) absMatcher);
+            }
+        }
+        ALL = Collections.unmodifiableList(matchers);
+        explicitMatcher = Collections.unmodifiableList(explicit);
+        implicitMatcher = Collections.unmodifiableList(implicit);
+        buckets = dispatchMatcher(matchers);
+    }
+
+    /**
+     * Put matchers into buckets by the schemes they can match.
+     */
+    private static Bucket[] dispatchMatcher(List<AbsMatcher> matchers) {
+        Set<String> schemes = new LinkedHashSet<>();
+        for (AbsMatcher absMatcher : matchers) {
+            addSchemes(schemes, absMatcher.getSchemes());
+            addSchemes(schemes, absMatcher.getExcludedSchemes());
+        }
+        Bucket[] buckets = new Bucket[schemes.size() + 1];
+        int i = 0;
+        for (String scheme : schemes) {
+            buckets[i++] = new Bucket(scheme);
+        }
+        Bucket any = new Bucket(null);
+        buckets[i] = any;
+        for (AbsMatcher absMatcher : matchers) {
+            String[] declared = absMatcher.getSchemes();
+            if (declared == null) {
+                any.add(absMatcher);
+            }
+            for (int j = 0; j < buckets.length - 1; j++) {
+                Bucket bucket = buckets[j];
+                if (declared != null ? containsIgnoreCase(declared, bucket.scheme)
+                        : !containsIgnoreCase(absMatcher.getExcludedSchemes(), bucket.scheme)) {
+                    bucket.add(absMatcher);
+                }
+            }
+        }
+        return buckets;
+    }
+
+    private static Bucket bucketOf(Uri uri) {
+        Bucket[] buckets = MatcherRegistry.buckets;
+        String scheme = uri.getScheme();
+        if (scheme != null) {
+            for (int i = 0; i < buckets.length - 1; i++) {
+                if (buckets[i].scheme.equalsIgnoreCase(scheme)) {
+                    return buckets[i];
+                }
+            }
+        }
+        return buckets[buckets.length - 1];
+    }
+
+    private static void addSchemes(Set<String> set, String[] schemes) {
+        if (schemes != null) {
+            for (String scheme : schemes) {
+                set.add(scheme.toLowerCase());
+            }
+        }
+    }
+
+    private static boolean containsIgnoreCase(String[] array, String str) {
+        if (array != null) {
+            for (String item : array) {
+                if (item.equalsIgnoreCase(str)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Matchers for a scheme. Lists are only changed before the bucket is published.
+     */
+    private static class Bucket {
+        // lower case, null for any scheme.
+        final String scheme;
+        private final List<AbsMatcher> allList = new ArrayList<>();
+        private final List<AbsExplicitMatcher> explicitList = new ArrayList<>();
+        final List<AbsMatcher> all = Collections.unmodifiableList(allList);
+        final List<AbsExplicitMatcher> explicit = Collections.unmodifiableList(explicitList);
+
+        Bucket(String scheme) {
+            this.scheme = scheme;
+        }
+
+        void add(AbsMatcher matcher) {
+            allList.add(matcher);
+            if (matcher instanceof AbsExplicitMatcher) {
+                explicitList.add((AbsExplicitMatcher) matcher);
             }
         }
     }
@@ -0,0 +1,199 @@
+package com.chenenyu.router;
+
+import android.content.Context;
+import android.support.annotation.Nullable;
+
+import com.chenenyu.router.template.InterceptorFactory;
+import com.chenenyu.router.template.InterceptorTable;
+import com.chenenyu.router.template.RouteGroups;
+import com.chenenyu.router.template.RouteHashTable;
+import com.chenenyu.router.template.RouteIndexAsset;
+import com.chenenyu.router.template.RouteTable;
+import com.chenenyu.router.template.TargetInterceptorNames;
+import com.chenenyu.router.template.TargetInterceptors;
+import com.chenenyu.router.util.RLog;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Generated tables of a module, loaded into the module's own maps, so that modules can be loaded
+ * concurrently and then merged into {@link AptHub} in order.
+ */
+final class ModuleTables {
+    private static final String PACKAGE_NAME = "com.chenenyu.router";
+    private static final String DOT = ".";
+    static final String ROUTE_TABLE = "RouteTable";
+    static final String INTERCEPTOR_TABLE = "InterceptorTable";
+    static final String INTERCEPTOR_FACTORY = "InterceptorFactory";
+    static final String TARGET_INTERCEPTORS = "TargetInterceptors";
+
+    final String name;
+    // whether the generated classes are found by the module name.
+    private final boolean reflective;
+    @Nullable
+    RouteTable routeTable;
+    @Nullable
+    TargetInterceptors targetInterceptors;
+    @Nullable
+    InterceptorTable interceptorTable;
+    @Nullable
+    InterceptorFactory interceptorFactory;
+
+    // results of load()
+    final Map<String, RouteTarget> routes = new HashMap<>();
+    List<String> routeGroups = Collections.emptyList();
+    // the mapped index of the route table if there is one, else the route table if it's hashed.
+    @Nullable
+    RouteHashTable routeHash;
+    // loaded targets -> interceptors
+    final Map<Class<?>, String[]> targets = new LinkedHashMap<>();
+    // targets that aren't loaded -> interceptors, by class names.
+    final Map<String, String[]> targetNames = new LinkedHashMap<>();
+    final Map<String, Class<? extends RouteInterceptor>> interceptors = new HashMap<>();
+    long loadNanos;
+    @Nullable
+    Throwable failure;
+
+    private ModuleTables(String name, boolean reflective) {
+        this.name = name;
+        this.reflective = reflective;
+    }
+
+    /**
+     * Tables found by the module name at {@link #load(boolean)}.
+     */
+    static ModuleTables forName(String module) {
+        return new ModuleTables(module, true);
+    }
+
+    /**
+     * Tables that are created already, e.g. by a generated registry.
+     */
+    static ModuleTables of(String module) {
+        return new ModuleTables(module, false);
+    }
+
+    /**
+     * Module name of a generated class, e.g. <code>App</code> of <code>AppRouteTable</code>.
+     */
+    static String moduleOf(Object table, String suffix) {
+        String name = table.getClass().getSimpleName();
+        return name.endsWith(suffix) ? name.substring(0, name.length() - suffix.length()) : name;
+    }
+
+    /**
+     * Set the table of the given kind if it isn't set yet.
+     *
+     * @param suffix kind of the table, such as {@link #ROUTE_TABLE}.
+     * @return False if this module has a table of the kind already.
+     */
+    boolean offer(Object table, String suffix) {
+        switch (suffix) {
+            case ROUTE_TABLE:
+                if (routeTable == null) {
+                    routeTable = (RouteTable) table;
+                    return true;
+                }
+                return false;
+            case TARGET_INTERCEPTORS:
+                if (targetInterceptors == null) {
+                    targetInterceptors = (TargetInterceptors) table;
+                    return true;
+                }
+                return false;
+            case INTERCEPTOR_TABLE:
+                if (interceptorTable == null) {
+                    interceptorTable = (InterceptorTable) table;
+                    return true;
+                }
+                return false;
+            case INTERCEPTOR_FACTORY:
+                if (interceptorFactory == null) {
+                    interceptorFactory = (InterceptorFactory) table;
+                    return true;
+                }
+                return false;
+            default:
+                throw new IllegalArgumentException("Unknown table: " + suffix);
+        }
+    }
+
+    /**
+     * Create the tables if needed and put their mappings into the maps of this module.
+     * Failures are kept for the thread that merges the modules, which skips this module then.
+     *
+     * @param lazyRouteGroups only record the route groups, don't load routes.
+     * @param assets          context to map the route index from assets, null to not map it. If the index
+     *                        is mapped, routes and targets' interceptors are looked up in it instead of
+     *                        being loaded, as if route groups were lazy.
+     */
+    void load(boolean lazyRouteGroups, @Nullable Context assets) {
+        long start = System.nanoTime();
+        try {
+            if (reflective) {
+                routeTable = newInstance(ROUTE_TABLE);
+                targetInterceptors = newInstance(TARGET_INTERCEPTORS);
+                interceptorTable = newInstance(INTERCEPTOR_TABLE);
+                interceptorFactory = newInstance(INTERCEPTOR_FACTORY);
+            }
+            boolean mapped = false;
+            if (routeTable != null) {
+                if (assets != null && routeTable instanceof RouteIndexAsset) {
+                    RouteIndexAsset asset = (RouteIndexAsset) routeTable;
+                    routeHash = MappedRouteTable.open(assets, asset.getAssetName(), asset.getFingerprint());
+                    mapped = routeHash != null;
+                }
+                if (routeHash == null && routeTable instanceof RouteHashTable) {
+                    routeHash = (RouteHashTable) routeTable;
+                }
+                // routes of a mapped index are found in it, groups are loaded only for other lookups.
+                if ((lazyRouteGroups || mapped) && routeTable instanceof RouteGroups) {
+                    routeGroups = Arrays.asList(((RouteGroups) routeTable).getGroups());
+                } else {
+                    AptHub.applyRouteTable(routeTable, routes);
+                }
+            }
+            // interceptors of targets are read from the mapped index.
+            if (targetInterceptors != null && !mapped) {
+                if (AptHub.deferTargetLoading && targetInterceptors instanceof TargetInterceptorNames) {
+                    ((TargetInterceptorNames) targetInterceptors).handleNames(targetNames);
+                } else {
+                    targetInterceptors.handle(targets);
+                }
+            }
+            if (interceptorTable != null) {
+                interceptorTable.handle(interceptors);
+            }
+        } catch (Throwable e) {
+            failure = e;
+        }
+        loadNanos = System.nanoTime() - start;
+    }
+
+    /**
+     * Create the generated class of the module reflectively.
+     */
+    @SuppressWarnings("unchecked")
+    @Nullable
+    private <T> T newInstance(String suffix) {
+        try {
+            Class<?> clz = Class.forName(PACKAGE_NAME + DOT + capitalize(name) + suffix);
+            return (T) clz.getConstructor().newInstance();
+        } catch (ClassNotFoundException e) {
+            RLog.i(String.format("There is no %s in module: %s.", suffix, name));
+        } catch (Exception e) {
+            RLog.w(e.getMessage());
+        }
+        return null;
+    }
+
+    private static String capitalize(CharSequence self) {
+        return self.length() == 0 ? "" :
+                "" + Character.toUpperCase(self.charAt(0)) + self.subSequence(1, self.length());
+    }
+}
@@ -3,8 +3,12 @@ package com.chenenyu.router;
 import android.app.Activity;
 import android.content.Context;
 import android.content.Intent;
+import android.net.Uri;
+import android.os.AsyncTask;
 import android.os.Build;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 import android.support.annotation.Nullable;
 import android.support.v4.app.ActivityCompat;
 import android.support.v4.app.Fragment;
@@ -17,12 +21,12 @@ import com.chenenyu.router.matcher.AbsMatcher;
 import com.chenenyu.router.template.ParamInjector;
 import com.chenenyu.router.util.RLog;
 
-import java.lang.reflect.Constructor;
 import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Core of router.
@@ -65,6 +69,80 @@ class RealRouter extends AbsRouter {
         }
     }
 
+    /**
+     * Whether the given uri can be resolved by the route table. Only explicit matchers are asked,
+     * with a null context, and a matcher that throws is taken as no match. Interceptors are not
+     * called and nothing is changed. It never waits, so it's false until the router is ready.
+     *
+     * @param uri the given uri.
+     * @return True if an explicit matcher matches a route for the uri.
+     */
+    static boolean canRoute(Uri uri) {
+        RouterReadiness readiness = Router.sReadiness;
+        if ((readiness != null && !readiness.isReady()) || AptHub.isRegistering()) {
+            return false;
+        }
+        if (uri == null || AptHub.isRouteTableEmpty()) {
+            return false;
+        }
+        RouteIndex index = AptHub.getRouteIndex(uri.toString());
+        // matchers write params into it, so it's only created for candidate routes.
+        RouteRequest probe = null;
+        List<AbsExplicitMatcher> matchers = MatcherRegistry.getExplicitMatcher(uri);
+        for (int i = 0; i < matchers.size(); i++) {
+            AbsExplicitMatcher matcher = matchers.get(i);
+            if (matcher.isIndexed()) {
+                String route = matcher.lookup(index, uri);
+                if (route != null) {
+                    if (probe == null) {
+                        probe = new RouteRequest(uri);
+                    }
+                    if (probe(matcher, uri, index.key(route), probe)) {
+                        return true;
+                    }
+                }
+            } else {
+                index = AptHub.loadAllRouteGroups();
+                for (RouteKey key : index.keys()) {
+                    if (probe == null) {
+                        probe = new RouteRequest(uri);
+                    }
+                    if (probe(matcher, uri, key, probe)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Ask the matcher without a context, a matcher that needs one may throw.
+     */
+    private static boolean probe(AbsExplicitMatcher matcher, Uri uri, RouteKey key, RouteRequest probe) {
+        try {
+            return matcher.matchKey(null, uri, key, probe);
+        } catch (RuntimeException e) {
+            RLog.w(String.format("%s failed to match %s without context: %s", matcher, key.getRoute(), e));
+            return false;
+        }
+    }
+
+    /**
+     * Whether {@link Router#initializeAsync(Configuration)} is ready, it's not waited for.
+     *
+     * @return False if it isn't ready.
+     */
+    private boolean checkReady() {
+        RouterReadiness readiness = Router.sReadiness;
+        if (readiness != null && !readiness.checkReady()) {
+            callback(RouteResult.FAILED, String.format("Router isn't ready for uri: %s, use go() or goAsync() "
+                    + "to queue it.", mRouteRequest.getUri()));
+            return false;
+        }
+        return true;
+    }
+
     private void callback(RouteResult result, String msg) {
         if (result != RouteResult.SUCCEED) {
             RLog.w(msg);
@@ -98,9 +176,13 @@ class RealRouter extends AbsRouter {
             return null;
         }
 
+        if (!checkReady()) {
+            return null;
+        }
+
         if (!mRouteRequest.isSkipInterceptors()) {
-            for (RouteInterceptor interceptor : Router.getGlobalInterceptors()) {
-                if (interceptor.intercept(source, mRouteRequest)) {
+            for (RouteInterceptor interceptor : Router.getGlobalInterceptors(mRouteRequest.getUri())) {
+                if (AptHub.interceptorMonitor.intercept(interceptor, source, mRouteRequest).isIntercepted()) {
                     callback(RouteResult.INTERCEPTED, String.format(
                             "Intercepted by global interceptor: %s.",
                             interceptor.getClass().getSimpleName()));
@@ -110,48 +192,44 @@ class RealRouter extends AbsRouter {
         }
 
         // Fragment只能匹配显式Matcher
-        List<AbsExplicitMatcher> matcherList = MatcherRegistry.getExplicitMatcher();
+        List<AbsExplicitMatcher> matcherList = MatcherRegistry.getExplicitMatcher(mRouteRequest.getUri());
         if (matcherList.isEmpty()) {
-            callback(RouteResult.FAILED, "The MatcherRegistry contains no explicit matcher.");
+            callback(RouteResult.FAILED, "The MatcherRegistry contains no explicit matcher for the scheme of uri.");
             return null;
         }
 
-        if (AptHub.routeTable.isEmpty()) {
+        AptHub.awaitRegistration();
+        if (AptHub.isRouteTableEmpty()) {
             callback(RouteResult.FAILED, "The route table contains no mapping.");
             return null;
         }
 
-        Set<Map.Entry<String, Class<?>>> entries = AptHub.routeTable.entrySet();
-
-        for (AbsExplicitMatcher matcher : matcherList) {
-            for (Map.Entry<String, Class<?>> entry : entries) {
-                if (matcher.match(context, mRouteRequest.getUri(), entry.getKey(), mRouteRequest)) {
-                    RLog.i("Caught by " + matcher.getClass().getCanonicalName());
-                    if (intercept(source, assembleClassInterceptors(entry.getValue()))) {
-                        return null;
-                    }
-                    Object result = matcher.generate(context, mRouteRequest.getUri(), entry.getValue(), false);
-                    if (result instanceof Fragment) {
-                        Fragment fragment = (Fragment) result;
-                        Bundle bundle = mRouteRequest.getExtras();
-                        if (bundle != null && !bundle.isEmpty()) {
-                            fragment.setArguments(bundle);
-                        }
-                        return fragment;
-                    } else if (result instanceof android.app.Fragment) {
-                        android.app.Fragment fragment = (android.app.Fragment) result;
-                        Bundle bundle = mRouteRequest.getExtras();
-                        if (bundle != null && !bundle.isEmpty()) {
-                            fragment.setArguments(bundle);
-                        }
-                        return fragment;
-                    } else {
-                        callback(RouteResult.FAILED, String.format(
-                                "The matcher can't generate a fragment instance for uri: %s",
-                                mRouteRequest.getUri().toString()));
-                        return null;
-                    }
+        RouteCache.Entry resolved = resolve(context, matcherList, true);
+        if (resolved != null) {
+            RouteTarget target = resolved.target;
+            if (intercept(source, assembleClassInterceptors(resolved.route, target), nameOf(target))) {
+                return null;
+            }
+            Object result = resolved.matcher.generateTarget(context, mRouteRequest.getUri(), target, false);
+            if (result instanceof Fragment) {
+                Fragment fragment = (Fragment) result;
+                Bundle bundle = mRouteRequest.getExtras();
+                if (bundle != null && !bundle.isEmpty()) {
+                    fragment.setArguments(bundle);
+                }
+                return fragment;
+            } else if (result instanceof android.app.Fragment) {
+                android.app.Fragment fragment = (android.app.Fragment) result;
+                Bundle bundle = mRouteRequest.getExtras();
+                if (bundle != null && !bundle.isEmpty()) {
+                    fragment.setArguments(bundle);
                 }
+                return fragment;
+            } else {
+                callback(RouteResult.FAILED, String.format(
+                        "The matcher can't generate a fragment instance for uri: %s",
+                        mRouteRequest.getUri().toString()));
+                return null;
             }
         }
 
@@ -162,7 +240,6 @@ class RealRouter extends AbsRouter {
 
     @Override
     public Intent getIntent(Object source) {
-        RLog.i("getIntent uri = " + mRouteRequest.getUri());
         if (mRouteRequest.getUri() == null) {
             callback(RouteResult.FAILED, "uri == null.");
             return null;
@@ -181,15 +258,18 @@ class RealRouter extends AbsRouter {
             }
         }
 
-        RLog.i("getIntent context = " + context);
         if (context == null) {
             callback(RouteResult.FAILED, "Can't retrieve context from source.");
             return null;
         }
 
+        if (!checkReady()) {
+            return null;
+        }
+
         if (!mRouteRequest.isSkipInterceptors()) {
-            for (RouteInterceptor interceptor : Router.getGlobalInterceptors()) {
-                if (interceptor.intercept(source, mRouteRequest)) {
+            for (RouteInterceptor interceptor : Router.getGlobalInterceptors(mRouteRequest.getUri())) {
+                if (AptHub.interceptorMonitor.intercept(interceptor, source, mRouteRequest).isIntercepted()) {
                     callback(RouteResult.INTERCEPTED, String.format(
                             "Intercepted by global interceptor: %s.",
                             interceptor.getClass().getSimpleName()));
@@ -198,168 +278,276 @@ class RealRouter extends AbsRouter {
             }
         }
 
-        List<AbsMatcher> matcherList = MatcherRegistry.getMatcher();
-        RLog.i("getIntent matcherList = " + matcherList);
-
+        List<AbsMatcher> matcherList = MatcherRegistry.getMatcher(mRouteRequest.getUri());
         if (matcherList.isEmpty()) {
-            callback(RouteResult.FAILED, "The MatcherRegistry contains no matcher.");
+            callback(RouteResult.FAILED, "The MatcherRegistry contains no matcher for the scheme of uri.");
             return null;
         }
 
-        Set<Map.Entry<String, Class<?>>> entries = AptHub.routeTable.entrySet();
+        RouteCache.Entry resolved = resolve(context, matcherList, false);
+        if (resolved != null) {
+            return generateIntent(source, context, resolved);
+        }
+
+        callback(RouteResult.FAILED, String.format(
+                "Can not find an Activity that matches the given uri: %s", mRouteRequest.getUri()));
+        return null;
+    }
+
+    /**
+     * Resolve current uri to a matcher and its route. A cached resolution is tried first,
+     * then the matchers are walked in order.
+     *
+     * @param context  source context
+     * @param matchers candidate matchers
+     * @param fragment resolve for fragment or intent
+     * @return resolved route, or null if no matcher matches.
+     */
+    @Nullable
+    RouteCache.Entry resolve(Context context, List<? extends AbsMatcher> matchers, boolean fragment) {
+        // modules may be registering on another thread.
+        AptHub.awaitRegistration();
+        Uri uri = mRouteRequest.getUri();
+        String uriString = uri.toString();
+        RouteCache cache = AptHub.routeCache;
+        RouteIndex index = AptHub.routeIndex;
+        RouteCache.Entry entry = cache.get(uriString, fragment);
+        if (entry != null) {
+            // match again to extract params into current request.
+            boolean matched = entry.route == null
+                    ? entry.matcher.match(context, uri, null, mRouteRequest)
+                    : entry.matcher.matchKey(context, uri, index.key(entry.route), mRouteRequest);
+            if (matched) {
+                return entry;
+            }
+            cache.remove(uriString, fragment);
+            entry = null;
+        }
 
-        for (AbsMatcher matcher : matcherList) {
-            if (AptHub.routeTable.isEmpty()) { // implicit totally.
-                if (matcher.match(context, mRouteRequest.getUri(), null, mRouteRequest)) {
-                    RLog.i("Caught by " + matcher.getClass().getCanonicalName());
-                    return generateIntent(source, context, matcher, null);
+        int generation = cache.generation();
+        index = AptHub.getRouteIndex(uriString);
+        boolean empty = AptHub.isRouteTableEmpty();
+        for (int i = 0, size = matchers.size(); i < size; i++) {
+            AbsMatcher matcher = matchers.get(i);
+            // implicit matchers don't care about the route table.
+            if (empty || matcher instanceof AbsImplicitMatcher) {
+                if (matcher.match(context, uri, null, mRouteRequest)) {
+                    entry = new RouteCache.Entry(matcher, null, null);
+                    break;
                 }
             } else {
-                boolean isImplicit = matcher instanceof AbsImplicitMatcher;
-                for (Map.Entry<String, Class<?>> entry : entries) {
-                    if (matcher.match(context, mRouteRequest.getUri(), isImplicit ? null : entry.getKey(), mRouteRequest)) {
-                        RLog.i("Caught by " + matcher.getClass().getCanonicalName());
-                        return generateIntent(source, context, matcher, isImplicit ? null : entry.getValue());
-                    }
+                if (!matcher.isIndexed()) {
+                    index = AptHub.loadAllRouteGroups();
+                }
+                String route = findRoute(context, index, matcher);
+                if (route != null) {
+                    entry = new RouteCache.Entry(matcher, route, index.target(route));
+                    break;
                 }
             }
         }
+        if (entry != null) {
+            if (RLog.isLoggable()) {
+                RLog.i("Caught by " + entry.matcher.getClass().getCanonicalName());
+            }
+            cache.put(uriString, fragment, generation, entry);
+        }
+        return entry;
+    }
 
-        callback(RouteResult.FAILED, String.format(
-                "Can not find an Activity that matches the given uri: %s", mRouteRequest.getUri()));
+    /**
+     * Find the path in route table that matches current uri. Indexed matchers look it up directly,
+     * others have to test every path in the table.
+     *
+     * @param context source context
+     * @param index   current route table
+     * @param matcher current matcher
+     * @return matched path, or null if not found.
+     */
+    @Nullable
+    String findRoute(Context context, RouteIndex index, AbsMatcher matcher) {
+        Uri uri = mRouteRequest.getUri();
+        if (matcher.isIndexed()) {
+            String route = matcher.lookup(index, uri);
+            if (route != null && matcher.matchKey(context, uri, index.key(route), mRouteRequest)) {
+                return route;
+            }
+            return null;
+        }
+        for (RouteKey key : index.keys()) {
+            if (matcher.matchKey(context, uri, key, mRouteRequest)) {
+                return key.getRoute();
+            }
+        }
         return null;
     }
 
     /**
      * Do intercept and then generate intent by the given matcher, finally assemble extras.
      *
-     * @param source  activity or fragment
-     * @param context source context
-     * @param matcher current matcher
-     * @param target  route target
+     * @param source   activity or fragment
+     * @param context  source context
+     * @param resolved resolved matcher and route
      * @return finally intent.
      */
-    private Intent generateIntent(Object source, Context context, AbsMatcher matcher, @Nullable Class<?> target) {
-        RLog.i("generateIntent intercept:" + target);
+    private Intent generateIntent(Object source, Context context, RouteCache.Entry resolved) {
         // 1. intercept
-        if (intercept(source, assembleClassInterceptors(target))) {
+        RouteTarget target = resolved.target;
+        if (intercept(source, assembleClassInterceptors(resolved.route, target), nameOf(target))) {
             return null;
         }
 
-        // 2. generate
-        Object result = matcher.generate(context, mRouteRequest.getUri(), target, true);
-        RLog.i("generateIntent matcher.generate result:" + result);
-        // 3. assemble
-        if (result instanceof Intent) {
-            Intent intent = (Intent) result;
-            if (mRouteRequest.getExtras() != null && !mRouteRequest.getExtras().isEmpty()) {
-                intent.putExtras(mRouteRequest.getExtras());
-            }
-            if (mRouteRequest.getFlags() != 0) {
-                intent.addFlags(mRouteRequest.getFlags());
-            }
-            if (mRouteRequest.getData() != null) {
-                intent.setData(mRouteRequest.getData());
-            }
-            if (mRouteRequest.getType() != null) {
-                intent.setType(mRouteRequest.getType());
-            }
-            if (mRouteRequest.getAction() != null) {
-                intent.setAction(mRouteRequest.getAction());
-            }
-            RLog.i("generateIntent return:" + result);
-            return intent;
-        } else {
+        // 2. generate and assemble
+        Intent intent = assembleIntent(context, resolved.matcher, target);
+        if (intent == null) {
             callback(RouteResult.FAILED, String.format(
                     "The matcher can't generate an intent for uri: %s",
                     mRouteRequest.getUri().toString()));
+        }
+        return intent;
+    }
+
+    /**
+     * Generate intent by the given matcher and assemble extras.
+     *
+     * @return The intent, or null if the matcher can't generate one.
+     */
+    @Nullable
+    private Intent assembleIntent(Context context, AbsMatcher matcher, @Nullable RouteTarget target) {
+        Object result = matcher.generateTarget(context, mRouteRequest.getUri(), target, true);
+        if (!(result instanceof Intent)) {
             return null;
         }
+        Intent intent = (Intent) result;
+        if (mRouteRequest.getExtras() != null && !mRouteRequest.getExtras().isEmpty()) {
+            intent.putExtras(mRouteRequest.getExtras());
+        }
+        if (mRouteRequest.getFlags() != 0) {
+            intent.addFlags(mRouteRequest.getFlags());
+        }
+        if (mRouteRequest.getData() != null) {
+            intent.setData(mRouteRequest.getData());
+        }
+        if (mRouteRequest.getType() != null) {
+            intent.setType(mRouteRequest.getType());
+        }
+        if (mRouteRequest.getAction() != null) {
+            intent.setAction(mRouteRequest.getAction());
+        }
+        return intent;
     }
 
     /**
-     * Assemble final interceptors for class.
+     * Assemble final interceptors for class. The precompiled chain of target is returned as is
+     * unless current request adds or removes interceptors.
      *
+     * @param route  matched path in route table
      * @param target activity or fragment
-     * @return Interceptors set.
+     * @return Interceptors in order, never null.
      */
-    private Set<String> assembleClassInterceptors(@Nullable Class<?> target) {
+    private RouteInterceptor[] assembleClassInterceptors(@Nullable String route, @Nullable RouteTarget target) {
         if (mRouteRequest.isSkipInterceptors()) {
-            return null;
+            return AptHub.NO_INTERCEPTORS;
+        }
+        Set<String> removedInterceptors = mRouteRequest.getRemovedInterceptors();
+        Set<String> addedInterceptors = mRouteRequest.getAddedInterceptors();
+        if ((removedInterceptors == null || removedInterceptors.isEmpty())
+                && (addedInterceptors == null || addedInterceptors.isEmpty())) {
+            return target == null ? AptHub.NO_INTERCEPTORS : AptHub.getInterceptorChain(target.getName(), route);
         }
         // Assemble final interceptors
         Set<String> finalInterceptors = new LinkedHashSet<>();
         if (target != null) {
             // 1. Add original interceptors in Map
-            String[] baseInterceptors = AptHub.targetInterceptors.get(target);
+            String[] baseInterceptors = AptHub.getTargetInterceptorNames(target.getName(), route);
             if (baseInterceptors != null && baseInterceptors.length > 0) {
                 Collections.addAll(finalInterceptors, baseInterceptors);
             }
             // 2. Skip temp removed interceptors
-            if (mRouteRequest.getRemovedInterceptors() != null) {
-                finalInterceptors.removeAll(mRouteRequest.getRemovedInterceptors());
+            if (removedInterceptors != null) {
+                finalInterceptors.removeAll(removedInterceptors);
             }
         }
         // 3. Add temp added interceptors
-        if (mRouteRequest.getAddedInterceptors() != null) {
-            finalInterceptors.addAll(mRouteRequest.getAddedInterceptors());
+        if (addedInterceptors != null) {
+            finalInterceptors.addAll(addedInterceptors);
         }
-        return finalInterceptors;
+        return AptHub.buildInterceptorChain(finalInterceptors);
+    }
+
+    @Nullable
+    private static String nameOf(@Nullable RouteTarget target) {
+        return target == null ? null : target.getName();
     }
 
     /**
-     * Find interceptors
+     * Do intercept
      *
-     * @param source            activity or fragment instance.
-     * @param finalInterceptors all interceptors
+     * @param source       activity or fragment instance.
+     * @param interceptors all interceptors
+     * @param target       class name of route target
      * @return True if intercepted, false otherwise.
      */
-    private boolean intercept(Object source, Set<String> finalInterceptors) {
+    private boolean intercept(Object source, RouteInterceptor[] interceptors, @Nullable String target) {
         if (mRouteRequest.isSkipInterceptors()) {
             return false;
         }
-        if (finalInterceptors != null && !finalInterceptors.isEmpty()) {
-            for (String name : finalInterceptors) {
-                RouteInterceptor interceptor = AptHub.interceptorInstances.get(name);
-                if (interceptor == null) {
-                    Class<? extends RouteInterceptor> clz = AptHub.interceptorTable.get(name);
-                    try {
-                        Constructor<? extends RouteInterceptor> constructor = clz.getConstructor();
-                        interceptor = constructor.newInstance();
-                        AptHub.interceptorInstances.put(name, interceptor);
-                    } catch (Exception e) {
-                        RLog.e("Can't construct a interceptor with name: " + name);
-                        e.printStackTrace();
-                    }
-                }
-                // do intercept
-                if (interceptor != null && interceptor.intercept(source, mRouteRequest)) {
-                    callback(RouteResult.INTERCEPTED, String.format(
-                            "Intercepted: {uri: %s, interceptor: %s}",
-                            mRouteRequest.getUri().toString(), name));
-                    return true;
+        InterceptorCache cache = AptHub.interceptorCache;
+        for (RouteInterceptor interceptor : interceptors) {
+            if (cache.isPassed(interceptor, target)) {
+                continue;
+            }
+            InterceptorMonitor.Decision decision = AptHub.interceptorMonitor.intercept(interceptor, source,
+                    mRouteRequest);
+            if (!decision.isIntercepted()) {
+                // a pass forced by the budget policy mustn't be cached as a real one.
+                if (decision.isCacheable()) {
+                    cache.putPassed(interceptor, target);
                 }
+            } else {
+                callback(RouteResult.INTERCEPTED, String.format(
+                        "Intercepted: {uri: %s, interceptor: %s}",
+                        mRouteRequest.getUri().toString(), interceptor.getClass().getSimpleName()));
+                return true;
             }
         }
         return false;
     }
 
     @Override
-    public boolean go(Context context) {
-        RLog.i("start create intent: ");
+    public boolean go(final Context context) {
+        RouterReadiness readiness = Router.sReadiness;
+        if (readiness != null && !readiness.isReplayed() && readiness.enqueue(new RouterReadiness.PendingRoute() {
+            @Override
+            public void replay() {
+                go(context);
+            }
+
+            @Override
+            public void cancel(String message) {
+                callback(RouteResult.FAILED, message);
+            }
+        })) {
+            RLog.i("Router isn't ready, queued: " + mRouteRequest.getUri());
+            return true;
+        }
         Intent intent = getIntent(context);
-        RLog.i("intent: " + intent);
 
         if (intent == null) {
             return false;
         }
+        startActivity(context, intent);
+        callback(RouteResult.SUCCEED, null);
+        return true;
+    }
+
+    private void startActivity(Context context, Intent intent) {
         Bundle options = mRouteRequest.getActivityOptionsBundle();
 
         if (context instanceof Activity) {
 
             ActivityCompat.startActivityForResult((Activity) context, intent,
                     mRouteRequest.getRequestCode(), options);
-            RLog.i("startActivityForResult: " + intent);
 
             if (mRouteRequest.getEnterAnim() >= 0 && mRouteRequest.getExitAnim() >= 0) {
                 // Add transition animation.
@@ -367,7 +555,6 @@ class RealRouter extends AbsRouter {
                         mRouteRequest.getEnterAnim(), mRouteRequest.getExitAnim());
             }
         } else {
-            RLog.i("FLAG_ACTIVITY_NEW_TASK: " + intent);
             intent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
             // The below api added in v4:25.1.0
             // ContextCompat.startActivity(context, intent, options);
@@ -377,8 +564,252 @@ class RealRouter extends AbsRouter {
                 context.startActivity(intent);
             }
         }
+    }
 
-        callback(RouteResult.SUCCEED, null);
-        return true;
+    @Override
+    public void goAsync(Context context) {
+        goAsync(context, AsyncTask.THREAD_POOL_EXECUTOR, null);
+    }
+
+    @Override
+    public void goAsync(Context context, Executor executor, @Nullable RouteListener listener) {
+        final AsyncRoute route = new AsyncRoute(context, executor, listener);
+        RouterReadiness readiness = Router.sReadiness;
+        if (readiness != null && !readiness.isReplayed() && readiness.enqueue(new RouterReadiness.PendingRoute() {
+            @Override
+            public void replay() {
+                route.start();
+            }
+
+            @Override
+            public void cancel(String message) {
+                route.finish(RouteResult.FAILED, message);
+            }
+        })) {
+            RLog.i("Router isn't ready, queued: " + mRouteRequest.getUri());
+            return;
+        }
+        route.start();
+    }
+
+    /**
+     * An asynchronous navigation: global interceptors, matchers and target interceptors run on
+     * the executor, {@link AsyncRouteInterceptor}s may resume it later. Only the activity is started
+     * on main thread.
+     */
+    private class AsyncRoute {
+        private final Context context;
+        private final Executor executor;
+        @Nullable
+        private final RouteListener listener;
+        private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+        AsyncRoute(Context context, Executor executor, @Nullable RouteListener listener) {
+            this.context = context;
+            this.executor = executor;
+            this.listener = listener;
+        }
+
+        void start() {
+            execute(new Runnable() {
+                @Override
+                public void run() {
+                    if (mRouteRequest.getUri() == null) {
+                        finish(RouteResult.FAILED, "uri == null.");
+                        return;
+                    }
+                    RouteInterceptor[] interceptors = mRouteRequest.isSkipInterceptors()
+                            ? AptHub.NO_INTERCEPTORS : Router.getGlobalInterceptors(mRouteRequest.getUri());
+                    proceed(interceptors, null, 0, new Runnable() {
+                        @Override
+                        public void run() {
+                            resolveTarget();
+                        }
+                    });
+                }
+            });
+        }
+
+        private void resolveTarget() {
+            List<AbsMatcher> matcherList = MatcherRegistry.getMatcher(mRouteRequest.getUri());
+            if (matcherList.isEmpty()) {
+                finish(RouteResult.FAILED, "The MatcherRegistry contains no matcher for the scheme of uri.");
+                return;
+            }
+            final RouteCache.Entry resolved = resolve(context, matcherList, false);
+            if (resolved == null) {
+                finish(RouteResult.FAILED, String.format(
+                        "Can not find an Activity that matches the given uri: %s", mRouteRequest.getUri()));
+                return;
+            }
+            RouteInterceptor[] interceptors = assembleClassInterceptors(resolved.route, resolved.target);
+            proceed(interceptors, nameOf(resolved.target), 0, new Runnable() {
+                @Override
+                public void run() {
+                    startTarget(resolved);
+                }
+            });
+        }
+
+        private void startTarget(RouteCache.Entry resolved) {
+            final Intent intent = assembleIntent(context, resolved.matcher, resolved.target);
+            if (intent == null) {
+                finish(RouteResult.FAILED, String.format(
+                        "The matcher can't generate an intent for uri: %s", mRouteRequest.getUri()));
+                return;
+            }
+            mainHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        startActivity(context, intent);
+                    } catch (RuntimeException e) {
+                        RLog.e("Start activity failed.", e);
+                        finish(RouteResult.FAILED, e.toString());
+                        return;
+                    }
+                    finish(RouteResult.SUCCEED, null);
+                }
+            });
+        }
+
+        /**
+         * Run interceptors from the given index, then run next. An asynchronous interceptor
+         * suspends the chain until it proceeds.
+         *
+         * @param target class name of route target, null for global interceptors.
+         */
+        private void proceed(RouteInterceptor[] interceptors, @Nullable String target, int from, Runnable next) {
+            InterceptorCache cache = AptHub.interceptorCache;
+            for (int i = from; i < interceptors.length; i++) {
+                final RouteInterceptor interceptor = interceptors[i];
+                if (cache.isPassed(interceptor, target)) {
+                    continue;
+                }
+                if (interceptor instanceof AsyncRouteInterceptor) {
+                    Continuation continuation = new Continuation(interceptors, target, i, next);
+                    continuation.start();
+                    ((AsyncRouteInterceptor) interceptor).intercept(context, mRouteRequest, continuation);
+                    return;
+                }
+                InterceptorMonitor.Decision decision = AptHub.interceptorMonitor.intercept(interceptor, context,
+                        mRouteRequest);
+                if (decision.isIntercepted()) {
+                    intercepted(interceptor);
+                    return;
+                }
+                if (decision.isCacheable()) {
+                    cache.putPassed(interceptor, target);
+                }
+            }
+            next.run();
+        }
+
+        /**
+         * Continuation of an asynchronous interceptor. Only the first of proceed, abort and
+         * the budget timeout takes effect.
+         */
+        private class Continuation implements AsyncRouteInterceptor.Chain, Runnable {
+            private final RouteInterceptor[] interceptors;
+            @Nullable
+            private final String target;
+            private final int index;
+            private final Runnable next;
+            private final AtomicBoolean called = new AtomicBoolean();
+            private long startNanos;
+
+            Continuation(RouteInterceptor[] interceptors, @Nullable String target, int index, Runnable next) {
+                this.interceptors = interceptors;
+                this.target = target;
+                this.index = index;
+                this.next = next;
+            }
+
+            void start() {
+                startNanos = System.nanoTime();
+                InterceptorMonitor monitor = AptHub.interceptorMonitor;
+                if (monitor.getBudgetMillis() > 0 && monitor.getPolicy() != InterceptorMonitor.Policy.REPORT) {
+                    mainHandler.postDelayed(this, monitor.getBudgetMillis());
+                }
+            }
+
+            @Override
+            public void proceed() {
+                if (called.compareAndSet(false, true)) {
+                    mainHandler.removeCallbacks(this);
+                    record();
+                    AptHub.interceptorCache.putPassed(interceptors[index], target);
+                    resume();
+                }
+            }
+
+            @Override
+            public void abort() {
+                if (called.compareAndSet(false, true)) {
+                    mainHandler.removeCallbacks(this);
+                    record();
+                    intercepted(interceptors[index]);
+                }
+            }
+
+            /**
+             * Over the budget.
+             */
+            @Override
+            public void run() {
+                if (called.compareAndSet(false, true)) {
+                    record();
+                    if (AptHub.interceptorMonitor.getPolicy() == InterceptorMonitor.Policy.FAIL_OPEN) {
+                        resume();
+                    } else {
+                        intercepted(interceptors[index]);
+                    }
+                }
+            }
+
+            private void record() {
+                AptHub.interceptorMonitor.record(interceptors[index], mRouteRequest, System.nanoTime() - startNanos);
+            }
+
+            private void resume() {
+                execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        AsyncRoute.this.proceed(interceptors, target, index + 1, next);
+                    }
+                });
+            }
+        }
+
+        private void intercepted(RouteInterceptor interceptor) {
+            finish(RouteResult.INTERCEPTED, String.format("Intercepted: {uri: %s, interceptor: %s}",
+                    mRouteRequest.getUri().toString(), interceptor.getClass().getSimpleName()));
+        }
+
+        private void execute(final Runnable step) {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        step.run();
+                    } catch (RuntimeException e) {
+                        RLog.e("Route failed.", e);
+                        finish(RouteResult.FAILED, e.toString());
+                    }
+                }
+            });
+        }
+
+        private void finish(final RouteResult result, @Nullable final String message) {
+            callback(result, message);
+            if (listener != null) {
+                mainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        listener.onResult(mRouteRequest, result, message);
+                    }
+                });
+            }
+        }
     }
 }
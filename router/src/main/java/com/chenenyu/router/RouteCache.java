@@ -0,0 +1,134 @@
+package com.chenenyu.router;
+
+import android.support.annotation.Nullable;
+
+import com.chenenyu.router.matcher.AbsMatcher;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * LRU cache of resolved routes: uri -> (matcher, route, target).
+ * <p>
+ * Only the resolution is cached. The cached matcher still matches the uri again on every request,
+ * so query parameters and path variables are extracted and interceptors are run as usual.
+ * The cache is cleared whenever the route table or the matchers change.
+ */
+public class RouteCache {
+    static final int DEFAULT_MAX_SIZE = 64;
+
+    private int maxSize = DEFAULT_MAX_SIZE;
+    // incremented on each clear, so that a resolution started before it won't be cached.
+    private int generation;
+    private int hitCount;
+    private int missCount;
+    private final Map<String, Entry> intentEntries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Entry> fragmentEntries = new LinkedHashMap<>(16, 0.75f, true);
+
+    RouteCache() {
+    }
+
+    /**
+     * Resolved route.
+     */
+    static class Entry {
+        final AbsMatcher matcher;
+        // null if resolved by an implicit matcher.
+        @Nullable
+        final String route;
+        @Nullable
+        final RouteTarget target;
+
+        Entry(AbsMatcher matcher, @Nullable String route, @Nullable RouteTarget target) {
+            this.matcher = matcher;
+            this.route = route;
+            this.target = target;
+        }
+    }
+
+    @Nullable
+    synchronized Entry get(String uri, boolean fragment) {
+        Entry entry = (fragment ? fragmentEntries : intentEntries).get(uri);
+        if (entry != null) {
+            hitCount++;
+        } else {
+            missCount++;
+        }
+        return entry;
+    }
+
+    synchronized int generation() {
+        return generation;
+    }
+
+    /**
+     * @param generation the {@link #generation()} when the resolution started.
+     */
+    synchronized void put(String uri, boolean fragment, int generation, Entry entry) {
+        if (maxSize <= 0 || generation != this.generation) {
+            return;
+        }
+        Map<String, Entry> entries = fragment ? fragmentEntries : intentEntries;
+        entries.put(uri, entry);
+        trimToSize(entries);
+    }
+
+    synchronized void remove(String uri, boolean fragment) {
+        (fragment ? fragmentEntries : intentEntries).remove(uri);
+    }
+
+    /**
+     * Clear all cached resolutions.
+     */
+    public synchronized void clear() {
+        generation++;
+        intentEntries.clear();
+        fragmentEntries.clear();
+    }
+
+    /**
+     * Sets the max count of cached uris, for intents and fragments respectively. 0 disables the cache.
+     */
+    public synchronized void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+        trimToSize(intentEntries);
+        trimToSize(fragmentEntries);
+    }
+
+    public synchronized int maxSize() {
+        return maxSize;
+    }
+
+    public synchronized int size() {
+        return intentEntries.size() + fragmentEntries.size();
+    }
+
+    /**
+     * Returns the number of times that a cached resolution was found.
+     */
+    public synchronized int hitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Returns the number of times that a uri had to be resolved by walking the matchers.
+     */
+    public synchronized int missCount() {
+        return missCount;
+    }
+
+    private void trimToSize(Map<String, Entry> entries) {
+        int max = Math.max(maxSize, 0);
+        while (entries.size() > max) {
+            entries.remove(entries.keySet().iterator().next());
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        int accesses = hitCount + missCount;
+        int hitPercent = accesses != 0 ? (100 * hitCount / accesses) : 0;
+        return String.format("RouteCache[maxSize=%d,size=%d,hits=%d,misses=%d,hitRate=%d%%]",
+                maxSize, size(), hitCount, missCount, hitPercent);
+    }
+}
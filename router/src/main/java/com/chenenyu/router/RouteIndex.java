@@ -0,0 +1,459 @@
+package com.chenenyu.router;
+
+import android.support.annotation.Nullable;
+
+import com.chenenyu.router.template.RouteHashTable;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Prebuilt index over the route table, so that matchers can find their route by lookup
+ * instead of testing every path in the table.
+ * <p>
+ * An index is an immutable snapshot of the route table, it's built before being published
+ * and never changed afterwards, so it can be read from any thread without locks.
+ * <p>
+ * Besides the exact paths, absolute routes are kept in a segment trie:
+ * scheme -> authority -> path segments. A lookup walks the given uri segment by segment,
+ * so it costs the length of the uri rather than the size of the table.
+ * <p>
+ * A path segment like <code>{id}</code> is a variable, it matches any non-empty segment.
+ * Literal segments are preferred over variables.
+ * <p>
+ * A bloom filter over scheme and authority of the absolute routes answers most misses
+ * by scanning the uri string once, without parsing it or allocating anything.
+ * <p>
+ * Exact paths are looked up in the perfect hash tables of modules first, which also have the routes
+ * of groups that are not loaded yet. The keys and targets of such routes are created on first use.
+ * Once a custom route table is applied, the index is built without hash tables, so that the routes
+ * it removes or remaps aren't found there.
+ */
+public class RouteIndex {
+    private static final int FNV_OFFSET = 0x811c9dc5;
+    private static final int FNV_PRIME = 0x01000193;
+    private static final int FILTER_HASHES = 3;
+    private static final RouteHashTable[] NO_HASH_TABLES = new RouteHashTable[0];
+
+    // path -> Activity/Fragment
+    private final Map<String, RouteTarget> routeTable;
+    // path -> pre-parsed path
+    private final Map<String, RouteKey> routeKeys;
+    // scheme -> authority -> segments
+    private final Node root = new Node();
+    // bloom filter of scheme and authority
+    private final long[] filter;
+    // perfect hash tables of modules, in the order they're registered.
+    private final RouteHashTable[] hashTables;
+    // path -> key and target of routes that are only in hash tables, created on first use.
+    private final ConcurrentMap<String, RouteKey> hashedKeys;
+    private final ConcurrentMap<String, RouteTarget> hashedTargets;
+
+    /**
+     * @param routeTable path -> Activity/Fragment, not changed afterwards.
+     * @param routeKeys  path -> pre-parsed path, not changed afterwards.
+     */
+    RouteIndex(Map<String, RouteTarget> routeTable, Map<String, RouteKey> routeKeys) {
+        this(routeTable, routeKeys, NO_HASH_TABLES);
+    }
+
+    /**
+     * @param routeTable path -> Activity/Fragment, not changed afterwards.
+     * @param routeKeys  path -> pre-parsed path, not changed afterwards.
+     * @param hashTables perfect hash tables of modules, later ones override former ones.
+     */
+    RouteIndex(Map<String, RouteTarget> routeTable, Map<String, RouteKey> routeKeys, RouteHashTable[] hashTables) {
+        this.routeTable = routeTable;
+        this.routeKeys = routeKeys;
+        this.hashTables = hashTables;
+        this.hashedKeys = new ConcurrentHashMap<>(hashTables.length == 0 ? 1 : 16);
+        this.hashedTargets = new ConcurrentHashMap<>(hashTables.length == 0 ? 1 : 16);
+        int bits = 64;
+        while (bits < routeTable.size() * 8) {
+            bits <<= 1;
+        }
+        this.filter = new long[bits >>> 6];
+    }
+
+    /**
+     * Whether the route table is empty.
+     */
+    public boolean isEmpty() {
+        return routeTable.isEmpty() && hashTables.length == 0;
+    }
+
+    /**
+     * @return The target of the path, or null if the path is not in route table.
+     */
+    @Nullable
+    public RouteTarget target(String route) {
+        RouteTarget target = routeTable.get(route);
+        if (target == null && hashTables.length > 0) {
+            target = hashedTargets.get(route);
+            if (target == null) {
+                for (int i = hashTables.length - 1; i >= 0; i--) {
+                    int slot = hashTables[i].indexOf(route);
+                    if (slot >= 0) {
+                        target = hashTables[i].getTarget(slot);
+                        RouteTarget existing = hashedTargets.putIfAbsent(route, target);
+                        return existing == null ? target : existing;
+                    }
+                }
+            }
+        }
+        return target;
+    }
+
+    /**
+     * @return The pre-parsed path, or null if the path is not in route table.
+     */
+    @Nullable
+    public RouteKey key(String route) {
+        RouteKey key = routeKeys.get(route);
+        if (key == null && hashTables.length > 0) {
+            key = hashedKeys.get(route);
+            if (key == null && hashed(route)) {
+                key = RouteKey.parse(route);
+                RouteKey existing = hashedKeys.putIfAbsent(route, key);
+                return existing == null ? key : existing;
+            }
+        }
+        return key;
+    }
+
+    /**
+     * All pre-parsed paths, for matchers that can't look up.
+     */
+    public Collection<RouteKey> keys() {
+        return routeKeys.values();
+    }
+
+    /**
+     * Exact lookup, equivalent to comparing the given uri with every path in the route table.
+     *
+     * @param uri uri string.
+     * @return The path that equals the uri, or null if there is no such path.
+     */
+    @Nullable
+    public String exact(String uri) {
+        return hashed(uri) || routeKeys.containsKey(uri) ? uri : null;
+    }
+
+    /**
+     * Whether the path is in the perfect hash tables, no matter its group is loaded or not.
+     */
+    boolean hashed(String route) {
+        for (RouteHashTable table : hashTables) {
+            if (table.indexOf(route) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    RouteHashTable[] hashTables() {
+        return hashTables;
+    }
+
+    /**
+     * Add an absolute route to the segment trie. If several routes share the same key,
+     * the first one wins.
+     *
+     * @param scheme    scheme of the route, never null.
+     * @param authority decoded authority of the route.
+     * @param path      decoded path of the route.
+     * @param route     the route in route table.
+     */
+    void put(String scheme, @Nullable String authority, @Nullable String path, String route) {
+        addToFilter(filterHash(route, route.indexOf(':')));
+        Node node = root.getOrAdd(scheme);
+        if (isEmpty(authority)) {
+            if (node.route == null) {
+                node.route = route;
+            }
+            return;
+        }
+        node = node.getOrAdd(authority);
+        if (path != null) {
+            int start = trimStart(path);
+            int end = trimEnd(path, start);
+            if (start < end) {
+                int from = start;
+                for (int i = start; i <= end; i++) {
+                    if (i == end || path.charAt(i) == '/') {
+                        if (isVariable(path, from, i)) {
+                            node = node.getOrAddVariable();
+                        } else {
+                            node = node.getOrAdd(path.substring(from, i));
+                        }
+                        from = i + 1;
+                    }
+                }
+            }
+        }
+        if (node.route == null) {
+            node.route = route;
+        }
+    }
+
+    /**
+     * Whether there may be an absolute route with the same scheme and authority as the given uri.
+     * False positives are possible, false negatives are not.
+     *
+     * @param uri uri string.
+     * @return False if {@link #find(String, String, String)} must return null for the uri.
+     */
+    public boolean mayContain(String uri) {
+        int ssi = uri.indexOf(':');
+        return ssi >= 0 && filterContains(filterHash(uri, ssi));
+    }
+
+    /**
+     * Look up the absolute route that has the same scheme, authority and path as the given uri.
+     * Leading and trailing slashes of the paths are ignored. If the uri has no authority,
+     * the first route of the scheme that has no authority either is returned.
+     *
+     * @param scheme    scheme of the uri.
+     * @param authority decoded authority of the uri.
+     * @param path      decoded path of the uri.
+     * @return The candidate route, or null if there is no such route.
+     */
+    @Nullable
+    public String find(@Nullable String scheme, @Nullable String authority, @Nullable String path) {
+        if (scheme == null) {
+            return null;
+        }
+        Node node = root.get(scheme, 0, scheme.length());
+        if (node == null) {
+            return null;
+        }
+        if (isEmpty(authority)) {
+            return node.route;
+        }
+        node = node.get(authority, 0, authority.length());
+        if (node == null) {
+            return null;
+        }
+        // the authority node itself is the empty path.
+        if (path == null) {
+            return node.route;
+        }
+        int start = trimStart(path);
+        int end = trimEnd(path, start);
+        return start < end ? walk(node, path, start, end) : node.route;
+    }
+
+    /**
+     * Walk the segments of path[from, end), try literal segments first and then variables.
+     */
+    @Nullable
+    private static String walk(Node node, String path, int from, int end) {
+        if (from > end) {
+            return node.route;
+        }
+        int i = path.indexOf('/', from);
+        if (i < 0 || i > end) {
+            i = end;
+        }
+        Node child = node.get(path, from, i);
+        if (child != null) {
+            String route = walk(child, path, i + 1, end);
+            if (route != null) {
+                return route;
+            }
+        }
+        if (node.variable != null && i > from) {
+            return walk(node.variable, path, i + 1, end);
+        }
+        return null;
+    }
+
+    /**
+     * Whether path[start, end) is a variable segment like <code>{id}</code>.
+     */
+    static boolean isVariable(String path, int start, int end) {
+        return end - start > 2 && path.charAt(start) == '{' && path.charAt(end - 1) == '}';
+    }
+
+    private void addToFilter(int hash) {
+        int mask = (filter.length << 6) - 1;
+        int step = (hash >>> 16) | (hash << 16) | 1;
+        for (int i = 0; i < FILTER_HASHES; i++) {
+            int bit = (hash + i * step) & mask;
+            filter[bit >>> 6] |= 1L << bit;
+        }
+    }
+
+    private boolean filterContains(int hash) {
+        int mask = (filter.length << 6) - 1;
+        int step = (hash >>> 16) | (hash << 16) | 1;
+        for (int i = 0; i < FILTER_HASHES; i++) {
+            int bit = (hash + i * step) & mask;
+            if ((filter[bit >>> 6] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * FNV-1a hash of the scheme and the authority of a uri string. Percent escapes of the authority
+     * are decoded and other chars are hashed as UTF-8 bytes, so that it's the same as hashing the
+     * decoded authority, like {@link android.net.Uri#getAuthority()} returns.
+     *
+     * @param uri uri string.
+     * @param ssi index of the scheme separator ':'.
+     */
+    private static int filterHash(String uri, int ssi) {
+        int h = FNV_OFFSET;
+        for (int i = 0; i < ssi; i++) {
+            h = (h ^ uri.charAt(i)) * FNV_PRIME;
+        }
+        h = (h ^ ':') * FNV_PRIME;
+        int length = uri.length();
+        if (length > ssi + 2 && uri.charAt(ssi + 1) == '/' && uri.charAt(ssi + 2) == '/') {
+            for (int i = ssi + 3; i < length; i++) {
+                char c = uri.charAt(i);
+                if (c == '/' || c == '\\' || c == '?' || c == '#') {
+                    break;
+                }
+                int hi;
+                int lo;
+                if (c == '%' && i + 2 < length
+                        && (hi = Character.digit(uri.charAt(i + 1), 16)) >= 0
+                        && (lo = Character.digit(uri.charAt(i + 2), 16)) >= 0) {
+                    h = (h ^ ((hi << 4) | lo)) * FNV_PRIME;
+                    i += 2;
+                } else if (c < 0x80) {
+                    h = (h ^ c) * FNV_PRIME;
+                } else if (c < 0x800) {
+                    h = (h ^ (0xc0 | (c >> 6))) * FNV_PRIME;
+                    h = (h ^ (0x80 | (c & 0x3f))) * FNV_PRIME;
+                } else if (Character.isHighSurrogate(c) && i + 1 < length
+                        && Character.isLowSurrogate(uri.charAt(i + 1))) {
+                    int cp = Character.toCodePoint(c, uri.charAt(++i));
+                    h = (h ^ (0xf0 | (cp >> 18))) * FNV_PRIME;
+                    h = (h ^ (0x80 | ((cp >> 12) & 0x3f))) * FNV_PRIME;
+                    h = (h ^ (0x80 | ((cp >> 6) & 0x3f))) * FNV_PRIME;
+                    h = (h ^ (0x80 | (cp & 0x3f))) * FNV_PRIME;
+                } else {
+                    h = (h ^ (0xe0 | (c >> 12))) * FNV_PRIME;
+                    h = (h ^ (0x80 | ((c >> 6) & 0x3f))) * FNV_PRIME;
+                    h = (h ^ (0x80 | (c & 0x3f))) * FNV_PRIME;
+                }
+            }
+        }
+        return h;
+    }
+
+    private static int trimStart(String path) {
+        int start = 0;
+        while (start < path.length() && path.charAt(start) == '/') {
+            start++;
+        }
+        return start;
+    }
+
+    private static int trimEnd(String path, int start) {
+        int end = path.length();
+        while (end > start && path.charAt(end - 1) == '/') {
+            end--;
+        }
+        return end;
+    }
+
+    private static boolean isEmpty(CharSequence str) {
+        return str == null || str.length() == 0;
+    }
+
+    /**
+     * Trie node. Children are kept in an open addressing table, so that a segment can be looked up
+     * by a region of the uri without creating substrings.
+     */
+    private static class Node {
+        @Nullable
+        String route;
+        // child for variable segment
+        @Nullable
+        Node variable;
+        @Nullable
+        private String[] keys;
+        @Nullable
+        private Node[] children;
+        private int size;
+
+        @Nullable
+        Node get(String str, int start, int end) {
+            if (keys == null) {
+                return null;
+            }
+            int len = end - start;
+            int mask = keys.length - 1;
+            for (int i = hash(str, start, end) & mask; keys[i] != null; i = (i + 1) & mask) {
+                String key = keys[i];
+                if (key.length() == len && key.regionMatches(0, str, start, len)) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        Node getOrAdd(String key) {
+            Node node = get(key, 0, key.length());
+            if (node == null) {
+                if (keys == null || (size + 1) * 2 > keys.length) {
+                    resize(keys == null ? 4 : keys.length * 2);
+                }
+                node = new Node();
+                insert(key, node);
+            }
+            return node;
+        }
+
+        Node getOrAddVariable() {
+            if (variable == null) {
+                variable = new Node();
+            }
+            return variable;
+        }
+
+        private void resize(int capacity) {
+            String[] oldKeys = keys;
+            Node[] oldChildren = children;
+            keys = new String[capacity];
+            children = new Node[capacity];
+            size = 0;
+            if (oldKeys != null) {
+                for (int i = 0; i < oldKeys.length; i++) {
+                    if (oldKeys[i] != null) {
+                        insert(oldKeys[i], oldChildren[i]);
+                    }
+                }
+            }
+        }
+
+        private void insert(String key, Node node) {
+            int mask = keys.length - 1;
+            int i = hash(key, 0, key.length()) & mask;
+            while (keys[i] != null) {
+                i = (i + 1) & mask;
+            }
+            keys[i] = key;
+            children[i] = node;
+            size++;
+        }
+
+        /**
+         * Same as {@link String#hashCode()} of the region, spread a little.
+         */
+        private static int hash(String str, int start, int end) {
+            int h = 0;
+            for (int i = start; i < end; i++) {
+                h = 31 * h + str.charAt(i);
+            }
+            return h ^ (h >>> 16);
+        }
+    }
+}
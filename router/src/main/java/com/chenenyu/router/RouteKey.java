@@ -0,0 +1,137 @@
+package com.chenenyu.router;
+
+import android.net.Uri;
+import android.support.annotation.Nullable;
+
+/**
+ * Pre-parsed form of a path in route table, created once when the table changes,
+ * so that matchers don't need to parse the path on every request.
+ */
+public class RouteKey {
+    private static final String[] EMPTY = new String[0];
+
+    private final String route;
+    @Nullable
+    private final String scheme;
+    @Nullable
+    private final String authority;
+    private final String path;
+    private final String[] segments;
+    // variable name of each segment, null if the segment is literal.
+    @Nullable
+    private final String[] variables;
+
+    private RouteKey(String route, @Nullable String scheme, @Nullable String authority, String path,
+                     String[] segments, @Nullable String[] variables) {
+        this.route = route;
+        this.scheme = scheme;
+        this.authority = authority;
+        this.path = path;
+        this.segments = segments;
+        this.variables = variables;
+    }
+
+    /**
+     * Parse a path in route table.
+     *
+     * @param route path in route table.
+     * @return The parsed key.
+     */
+    public static RouteKey parse(String route) {
+        Uri uri = Uri.parse(route);
+        String path = uri.getPath();
+        path = path == null ? "" : cutSlash(path);
+        String[] segments = path.length() == 0 ? EMPTY : path.split("/", -1);
+        String[] variables = null;
+        for (int i = 0; i < segments.length; i++) {
+            String segment = segments[i];
+            if (segment.length() > 2 && segment.charAt(0) == '{' && segment.charAt(segment.length() - 1) == '}') {
+                if (variables == null) {
+                    variables = new String[segments.length];
+                }
+                variables[i] = segment.substring(1, segment.length() - 1);
+            }
+        }
+        return new RouteKey(route, uri.getScheme(), uri.getAuthority(), path, segments, variables);
+    }
+
+    /**
+     * The original path in route table.
+     */
+    public String getRoute() {
+        return route;
+    }
+
+    /**
+     * @see Uri#isAbsolute()
+     */
+    public boolean isAbsolute() {
+        return scheme != null;
+    }
+
+    /**
+     * @see Uri#getScheme()
+     */
+    @Nullable
+    public String getScheme() {
+        return scheme;
+    }
+
+    /**
+     * Decoded authority.
+     *
+     * @see Uri#getAuthority()
+     */
+    @Nullable
+    public String getAuthority() {
+        return authority;
+    }
+
+    /**
+     * Decoded path without head and tail slashes, never null.
+     */
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * Segments of {@link #getPath()}.
+     */
+    public String[] getSegments() {
+        return segments;
+    }
+
+    /**
+     * Whether the path contains variables like <code>{id}</code>.
+     */
+    public boolean hasVariables() {
+        return variables != null;
+    }
+
+    /**
+     * The variable name of the segment at the given index.
+     *
+     * @return Variable name without braces, or null if the segment is literal.
+     */
+    @Nullable
+    public String getVariable(int index) {
+        return variables == null ? null : variables[index];
+    }
+
+    private static String cutSlash(String path) {
+        int start = 0;
+        int end = path.length();
+        while (start < end && path.charAt(start) == '/') {
+            start++;
+        }
+        while (end > start && path.charAt(end - 1) == '/') {
+            end--;
+        }
+        return path.substring(start, end);
+    }
+
+    @Override
+    public String toString() {
+        return route;
+    }
+}
@@ -0,0 +1,15 @@
+package com.chenenyu.router;
+
+import android.support.annotation.Nullable;
+
+/**
+ * Result listener of an asynchronous navigation, it's called on main thread.
+ */
+public interface RouteListener {
+    /**
+     * @param routeRequest RouteRequest
+     * @param result       result of the navigation
+     * @param message      why it failed or was intercepted, null if succeeded
+     */
+    void onResult(RouteRequest routeRequest, RouteResult result, @Nullable String message);
+}
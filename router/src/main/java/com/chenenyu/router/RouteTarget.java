@@ -0,0 +1,118 @@
+package com.chenenyu.router;
+
+import android.app.Activity;
+import android.support.annotation.Nullable;
+
+import com.chenenyu.router.util.RLog;
+
+/**
+ * Target of a route, described by its class name and kind. The class is loaded on first use,
+ * so that routes to activities can be started by {@link android.content.ComponentName} without
+ * loading the activity class, and fragments are only loaded when they're resolved.
+ */
+public final class RouteTarget {
+    public enum Type {
+        ACTIVITY,
+        FRAGMENT,
+        SUPPORT_FRAGMENT,
+        OTHER
+    }
+
+    private final String name;
+    private final Type type;
+    @Nullable
+    private volatile Class<?> targetClass;
+
+    private RouteTarget(String name, Type type, @Nullable Class<?> targetClass) {
+        this.name = name;
+        this.type = type;
+        this.targetClass = targetClass;
+    }
+
+    /**
+     * @param name binary name of an {@link Activity}.
+     */
+    public static RouteTarget activity(String name) {
+        return new RouteTarget(name, Type.ACTIVITY, null);
+    }
+
+    /**
+     * @param name binary name of an {@link android.app.Fragment}.
+     */
+    public static RouteTarget fragment(String name) {
+        return new RouteTarget(name, Type.FRAGMENT, null);
+    }
+
+    /**
+     * @param name binary name of an {@link android.support.v4.app.Fragment}.
+     */
+    public static RouteTarget supportFragment(String name) {
+        return new RouteTarget(name, Type.SUPPORT_FRAGMENT, null);
+    }
+
+    /**
+     * Target of a loaded class.
+     */
+    public static RouteTarget of(Class<?> targetClass) {
+        Type type;
+        if (Activity.class.isAssignableFrom(targetClass)) {
+            type = Type.ACTIVITY;
+        } else if (android.app.Fragment.class.isAssignableFrom(targetClass)) {
+            type = Type.FRAGMENT;
+        } else if (isSupportFragment(targetClass)) {
+            type = Type.SUPPORT_FRAGMENT;
+        } else {
+            type = Type.OTHER;
+        }
+        return new RouteTarget(targetClass.getName(), type, targetClass);
+    }
+
+    /**
+     * Compared by name, the support library may not be in classpath.
+     */
+    private static boolean isSupportFragment(Class<?> clz) {
+        for (Class<?> c = clz; c != null; c = c.getSuperclass()) {
+            if ("android.support.v4.app.Fragment".equals(c.getName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Whether the class has been loaded.
+     */
+    public boolean isLoaded() {
+        return targetClass != null;
+    }
+
+    /**
+     * @return The class, it's loaded on first call. Null if it can't be found.
+     */
+    @Nullable
+    public Class<?> getTargetClass() {
+        Class<?> clz = targetClass;
+        if (clz == null) {
+            try {
+                clz = Class.forName(name);
+                targetClass = clz;
+            } catch (ClassNotFoundException e) {
+                RLog.e("Can't find route target: " + name, e);
+            }
+        }
+        return clz;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -1,9 +1,13 @@
 package com.chenenyu.router;
 
+import android.content.Context;
 import android.net.Uri;
+import android.os.AsyncTask;
+import android.support.annotation.Nullable;
 import android.util.Log;
 
 import com.chenenyu.router.matcher.AbsMatcher;
+import com.chenenyu.router.matcher.ImplicitMatcher;
 import com.chenenyu.router.template.InterceptorTable;
 import com.chenenyu.router.template.RouteTable;
 import com.chenenyu.router.template.TargetInterceptors;
@@ -13,6 +17,9 @@ import java.util.ArrayList;
 import java.util.Hashtable;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Entry class.
@@ -26,12 +33,84 @@ public class Router {
     public static final String RAW_URI = "raw_uri";
     public static final String CALLBACK_ID = "router_call_back_id";
 
-    private static List<RouteInterceptor> sGlobalInterceptors = new ArrayList<>();
-
+    // copy on write, so that it can be read without locks.
+    private static volatile GlobalInterceptors sGlobalInterceptors = GlobalInterceptors.EMPTY;
+    // readiness of the last asynchronous initialization, null if initialized synchronously.
+    @Nullable
+    static volatile RouterReadiness sReadiness;
 
     public static void initialize(Configuration configuration) {
         RLog.showLog(configuration.debuggable);
-        AptHub.registerModules(configuration.modules);
+        AptHub.routeCache.setMaxSize(configuration.routeCacheSize);
+        AptHub.lazyRouteGroups = configuration.lazyRouteGroups;
+        AptHub.deferTargetLoading = configuration.deferTargetLoading;
+        AptHub.routeIndexContext = configuration.routeIndexContext;
+        ImplicitMatcher.setCacheGranularity(configuration.implicitCacheGranularity);
+        AptHub.interceptorMonitor.setBudget(configuration.interceptorBudget, configuration.interceptorBudgetPolicy);
+        AptHub.interceptorMonitor.setMainThreadWatchdog(configuration.mainThreadWatchdog);
+        if (configuration.prewarmUris != null && configuration.prewarmUris.length > 0) {
+            final Context context = configuration.prewarmContext;
+            final String[] uris = configuration.prewarmUris;
+            AsyncTask.THREAD_POOL_EXECUTOR.execute(new Runnable() {
+                @Override
+                public void run() {
+                    ImplicitMatcher.prewarm(context, uris);
+                }
+            });
+        }
+        // published before the first pass, so that no route sees the tables of the registry only.
+        CountDownLatch registration = AptHub.beginRegistration();
+        ExecutorService executor = configuration.registrationThreads > 1
+                ? Executors.newFixedThreadPool(configuration.registrationThreads) : null;
+        try {
+            if (configuration.moduleRegistry != null) {
+                AptHub.registerModules(configuration.moduleRegistry, executor);
+            }
+            if (configuration.modules != null && configuration.modules.length > 0) {
+                AptHub.registerModules(configuration.modules, executor);
+            }
+        } finally {
+            AptHub.endRegistration(registration);
+            if (executor != null) {
+                executor.shutdown();
+            }
+        }
+        if (configuration.preloadInterceptors) {
+            final String[] routes = configuration.preloadRoutes;
+            AsyncTask.THREAD_POOL_EXECUTOR.execute(new Runnable() {
+                @Override
+                public void run() {
+                    AptHub.preloadInterceptors(routes);
+                }
+            });
+        }
+    }
+
+    /**
+     * Same as {@link #initialize(Configuration)}, but runs in background. Navigations issued before it's ready
+     * are queued, other routes fail fast.
+     *
+     * @return Readiness of the initialization.
+     * @see RouterReadiness
+     */
+    public static RouterReadiness initializeAsync(final Configuration configuration) {
+        final RouterReadiness readiness = new RouterReadiness(configuration.pendingRouteTimeout);
+        sReadiness = readiness;
+        AsyncTask.THREAD_POOL_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                RuntimeException error = null;
+                try {
+                    initialize(configuration);
+                } catch (RuntimeException e) {
+                    RLog.e("Initialize failed.", e);
+                    error = e;
+                } finally {
+                    readiness.complete(error);
+                }
+            }
+        });
+        return readiness;
     }
 
     public static IRouter build(String path) {
@@ -43,11 +122,26 @@ public class Router {
     }
 
     /**
-     * Custom route table.
+     * Fast query whether the given uri matches a route in route table, e.g. for
+     * <code>WebViewClient.shouldOverrideUrlLoading</code>. Unlike {@link IRouter#getIntent(Object)},
+     * it never runs interceptors or asks the system for implicit intents, and most misses are answered
+     * without any allocation. It never blocks, a uri queried before the router is ready isn't routable.
+     *
+     * @param uri the given uri.
+     * @return True if {@link #build(Uri)} can resolve it to an Activity or Fragment in route table.
+     */
+    public static boolean canRoute(Uri uri) {
+        return RealRouter.canRoute(uri);
+    }
+
+    /**
+     * Custom route table. With {@link Configuration.Builder#setDeferTargetLoading(boolean)}, implement
+     * {@link com.chenenyu.router.template.RouteTargetTable} to see and change routes without loading
+     * targets, other tables can only add or override routes.
      */
     public static void handleRouteTable(RouteTable routeTable) {
         if (routeTable != null) {
-            routeTable.handle(AptHub.routeTable);
+            AptHub.handleRouteTable(routeTable);
         }
     }
 
@@ -56,19 +150,50 @@ public class Router {
      */
     public static void handleInterceptorTable(InterceptorTable interceptorTable) {
         if (interceptorTable != null) {
-            interceptorTable.handle(AptHub.interceptorTable);
+            AptHub.handleInterceptorTable(interceptorTable);
         }
     }
 
     /**
-     * Custom targets' interceptors.
+     * Custom targets' interceptors. With {@link Configuration.Builder#setDeferTargetLoading(boolean)}, implement
+     * {@link com.chenenyu.router.template.TargetInterceptorNames} to see targets that haven't been loaded.
      */
     public static void handleTargetInterceptors(TargetInterceptors targetInterceptors) {
         if (targetInterceptors != null) {
-            targetInterceptors.handle(AptHub.targetInterceptors);
+            AptHub.handleTargetInterceptors(targetInterceptors);
         }
     }
 
+    /**
+     * Cache of resolved routes, it's cleared whenever the route table or the matchers change.
+     */
+    public static RouteCache getRouteCache() {
+        return AptHub.routeCache;
+    }
+
+    /**
+     * Cached passes of {@link CacheableInterceptor}s, invalidate it when their answers change.
+     */
+    public static InterceptorCache getInterceptorCache() {
+        return AptHub.interceptorCache;
+    }
+
+    /**
+     * Timing, budget and main thread watchdog of interceptors.
+     */
+    public static InterceptorMonitor getInterceptorMonitor() {
+        return AptHub.interceptorMonitor;
+    }
+
+    /**
+     * Time each registered module took to load its tables.
+     *
+     * @return module name -> microseconds, in the order they're registered.
+     */
+    public static Map<String, Long> getModuleTimings() {
+        return AptHub.moduleTimings;
+    }
+
     /**
      * Auto inject params from bundle.
      *
@@ -79,14 +204,48 @@ public class Router {
     }
 
     /**
-     * Global interceptor.
+     * Global interceptor, same as {@link #addGlobalInterceptor(RouteInterceptor, int)} with priority 0.
      */
     public static void addGlobalInterceptor(RouteInterceptor routeInterceptor) {
-        sGlobalInterceptors.add(routeInterceptor);
+        addGlobalInterceptor(routeInterceptor, 0);
+    }
+
+    /**
+     * Global interceptor for all uris, same as {@link #addGlobalInterceptor(RouteInterceptor, int, InterceptorScope)}
+     * with {@link InterceptorScope#ALL}.
+     */
+    public static void addGlobalInterceptor(RouteInterceptor routeInterceptor, int priority) {
+        addGlobalInterceptor(routeInterceptor, priority, InterceptorScope.ALL);
     }
 
+    /**
+     * Global interceptor. Interceptors with higher priority run first, interceptors with the same
+     * priority run in the order they are added. They are kept sorted, so nothing is sorted per route.
+     *
+     * @param scope uris it applies to, it's never called for other uris.
+     */
+    public synchronized static void addGlobalInterceptor(RouteInterceptor routeInterceptor, int priority,
+                                                         InterceptorScope scope) {
+        sGlobalInterceptors = sGlobalInterceptors.with(routeInterceptor, priority,
+                scope == null ? InterceptorScope.ALL : scope);
+    }
+
+    public synchronized static void removeGlobalInterceptor(RouteInterceptor routeInterceptor) {
+        sGlobalInterceptors = sGlobalInterceptors.without(routeInterceptor);
+    }
+
+    /**
+     * @return Unmodifiable snapshot of global interceptors.
+     */
     public static List<RouteInterceptor> getGlobalInterceptors() {
-        return sGlobalInterceptors;
+        return sGlobalInterceptors.all();
+    }
+
+    /**
+     * Global interceptors whose scope contains the given uri, sorted by priority.
+     */
+    static RouteInterceptor[] getGlobalInterceptors(Uri uri) {
+        return sGlobalInterceptors.select(uri);
     }
 
     /**
@@ -0,0 +1,202 @@
+package com.chenenyu.router;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.Nullable;
+
+import com.chenenyu.router.util.RLog;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Readiness of {@link Router#initializeAsync(Configuration)}.
+ * <p>
+ * Navigations by {@link IRouter#go(android.content.Context)} and
+ * {@link IRouter#goAsync(android.content.Context, java.util.concurrent.Executor, RouteListener)} issued
+ * before it's ready are queued, and replayed in order on main thread once the tables are registered.
+ * A queued navigation fails if it isn't replayed within the pending timeout, or if it's cancelled.
+ * {@link IRouter#getIntent(Object)} and {@link IRouter#getFragment(Object)} must return their results,
+ * so they return null with a warning instead, and {@link Router#canRoute(android.net.Uri)} is false.
+ * None of them waits, so that they never block main thread.
+ */
+public final class RouterReadiness {
+    /**
+     * A navigation queued before ready.
+     */
+    interface PendingRoute {
+        void replay();
+
+        void cancel(String message);
+    }
+
+    private final long timeoutMillis;
+    private final CountDownLatch latch = new CountDownLatch(1);
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    // guarded by this, null once replayed.
+    @Nullable
+    private ArrayDeque<Entry> pending = new ArrayDeque<>();
+    private volatile boolean replayed;
+    @Nullable
+    private volatile Throwable error;
+
+    RouterReadiness(long timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * @return True if the initialization is done, even if it failed.
+     */
+    public boolean isReady() {
+        return latch.getCount() == 0;
+    }
+
+    /**
+     * Wait until ready.
+     *
+     * @return True if ready, false if timed out.
+     */
+    public boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+        return latch.await(timeout, unit);
+    }
+
+    /**
+     * @return The exception thrown by initialization, null if it succeeded or isn't done.
+     */
+    @Nullable
+    public Throwable getError() {
+        return error;
+    }
+
+    /**
+     * Cancel all queued navigations, they fail as if timed out.
+     *
+     * @return Count of cancelled navigations.
+     */
+    public int cancelPending() {
+        ArrayDeque<Entry> cancelled;
+        synchronized (this) {
+            if (pending == null || pending.isEmpty()) {
+                return 0;
+            }
+            cancelled = pending;
+            pending = new ArrayDeque<>();
+        }
+        for (Entry entry : cancelled) {
+            mainHandler.removeCallbacks(entry);
+            entry.route.cancel("Cancelled before Router is ready.");
+        }
+        return cancelled.size();
+    }
+
+    /**
+     * @return True if queued navigations have been replayed, nothing is queued any more.
+     */
+    boolean isReplayed() {
+        return replayed;
+    }
+
+    /**
+     * Queue the navigation if not replayed yet.
+     *
+     * @return False if it should go on right now.
+     */
+    boolean enqueue(PendingRoute route) {
+        if (replayed) {
+            return false;
+        }
+        Entry entry = new Entry(route);
+        synchronized (this) {
+            if (pending == null) {
+                return false;
+            }
+            pending.add(entry);
+        }
+        if (timeoutMillis > 0) {
+            mainHandler.postDelayed(entry, timeoutMillis);
+        }
+        return true;
+    }
+
+    /**
+     * Check the readiness for a synchronous route without waiting. On main thread, queued navigations
+     * are replayed first, so that they still go in order.
+     *
+     * @return False if it isn't ready.
+     */
+    boolean checkReady() {
+        if (replayed) {
+            return true;
+        }
+        if (!isReady()) {
+            return false;
+        }
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            replay();
+        }
+        return true;
+    }
+
+    /**
+     * Called by the initializing thread when it's done.
+     */
+    void complete(@Nullable Throwable error) {
+        this.error = error;
+        latch.countDown();
+        mainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                replay();
+            }
+        });
+    }
+
+    private void replay() {
+        ArrayDeque<Entry> entries;
+        synchronized (this) {
+            if (pending == null) {
+                return;
+            }
+            entries = pending;
+            pending = null;
+            replayed = true;
+        }
+        Throwable error = this.error;
+        for (Entry entry : entries) {
+            mainHandler.removeCallbacks(entry);
+            if (error != null) {
+                entry.route.cancel("Router failed to initialize: " + error);
+                continue;
+            }
+            try {
+                entry.route.replay();
+            } catch (RuntimeException e) {
+                // one failed navigation mustn't drop the others.
+                RLog.e("Replay route failed.", e);
+            }
+        }
+    }
+
+    private synchronized boolean remove(Entry entry) {
+        return pending != null && pending.remove(entry);
+    }
+
+    /**
+     * Queued navigation, it times out when run.
+     */
+    private class Entry implements Runnable {
+        final PendingRoute route;
+
+        Entry(PendingRoute route) {
+            this.route = route;
+        }
+
+        @Override
+        public void run() {
+            if (remove(this)) {
+                route.cancel(String.format("Router isn't ready in %dms.", timeoutMillis));
+            }
+        }
+    }
+}
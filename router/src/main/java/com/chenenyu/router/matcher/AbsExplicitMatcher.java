@@ -7,6 +7,8 @@ import android.net.Uri;
 import android.support.annotation.Nullable;
 import android.support.v4.app.Fragment;
 
+import com.chenenyu.router.RouteTarget;
+
 /**
  * Base mather for explicit intent and fragment.
  * <p>
@@ -14,8 +16,32 @@ import android.support.v4.app.Fragment;
  */
 public abstract class AbsExplicitMatcher extends AbsMatcher {
 
+    // whether generate(Context, Uri, Class, boolean) isn't overridden by the subclass.
+    private final boolean defaultGenerate;
+
     public AbsExplicitMatcher(int priority) {
         super(priority);
+        boolean defaultGenerate;
+        try {
+            defaultGenerate = getClass().getMethod("generate", Context.class, Uri.class, Class.class,
+                    boolean.class).getDeclaringClass() == AbsExplicitMatcher.class;
+        } catch (NoSuchMethodException e) {
+            defaultGenerate = false;
+        }
+        this.defaultGenerate = defaultGenerate;
+    }
+
+    /**
+     * An activity that hasn't been loaded is started by its class name, without loading the class.
+     * If a subclass overrides {@link #generate(Context, Uri, Class, boolean)}, the class is loaded and
+     * passed to it as before.
+     */
+    @Override
+    public Object generateTarget(Context context, Uri uri, @Nullable RouteTarget target, boolean intentOrFragment) {
+        if (defaultGenerate && target != null && target.getType() == RouteTarget.Type.ACTIVITY && !target.isLoaded()) {
+            return new Intent().setClassName(context, target.getName());
+        }
+        return super.generateTarget(context, uri, target, intentOrFragment);
     }
 
     @Override
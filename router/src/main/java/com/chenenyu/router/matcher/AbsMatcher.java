@@ -1,10 +1,15 @@
 package com.chenenyu.router.matcher;
 
+import android.content.Context;
 import android.net.Uri;
 import android.os.Bundle;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 
+import com.chenenyu.router.RouteIndex;
+import com.chenenyu.router.RouteKey;
 import com.chenenyu.router.RouteRequest;
+import com.chenenyu.router.RouteTarget;
 
 import java.util.Iterator;
 import java.util.List;
@@ -25,6 +30,76 @@ public abstract class AbsMatcher implements Matcher {
         this.priority = priority;
     }
 
+    /**
+     * Same as {@link #match(Context, Uri, String, RouteRequest)}, but with the pre-parsed route,
+     * which is what the router calls. Override this to avoid parsing the route on every request.
+     * It's named differently so that calls of <code>match</code> with a null route stay unambiguous.
+     *
+     * @param context      Context.
+     * @param uri          the given uri.
+     * @param key          pre-parsed path in route table.
+     * @param routeRequest {@link RouteRequest}.
+     * @return True if matched, false otherwise.
+     */
+    public boolean matchKey(Context context, Uri uri, @Nullable RouteKey key, RouteRequest routeRequest) {
+        return match(context, uri, key == null ? null : key.getRoute(), routeRequest);
+    }
+
+    /**
+     * Same as {@link #generate(Context, Uri, Class, boolean)}, but with the route target whose class
+     * may not be loaded yet, which is what the router calls. The class is loaded by default.
+     * It's named differently so that calls of <code>generate</code> with a null target stay unambiguous.
+     *
+     * @param context          Context.
+     * @param uri              the given uri.
+     * @param target           route target.
+     * @param intentOrFragment true for intent, false for fragment.
+     * @return An object(intent/fragment) that the matcher generated.
+     */
+    public Object generateTarget(Context context, Uri uri, @Nullable RouteTarget target, boolean intentOrFragment) {
+        return generate(context, uri, target == null ? null : target.getTargetClass(), intentOrFragment);
+    }
+
+    /**
+     * Schemes that this matcher can match, or null if it may match any scheme.
+     * The registry only dispatches a uri to the matchers that can match its scheme.
+     * Schemes are compared ignoring case.
+     */
+    @Nullable
+    public String[] getSchemes() {
+        return null;
+    }
+
+    /**
+     * Schemes that this matcher never matches. Only used if {@link #getSchemes()} returns null.
+     */
+    @Nullable
+    public String[] getExcludedSchemes() {
+        return null;
+    }
+
+    /**
+     * Whether this matcher can find its route by {@link #lookup(RouteIndex, Uri)},
+     * instead of testing every path in the route table.
+     */
+    public boolean isIndexed() {
+        return false;
+    }
+
+    /**
+     * Looks up the only path in the route table that may match the given uri.
+     * The router still confirms it by {@link #matchKey(Context, Uri, RouteKey, RouteRequest)}.
+     * Only called when {@link #isIndexed()} returns true.
+     *
+     * @param index route index.
+     * @param uri   the given uri.
+     * @return The candidate path, or null if no path can match.
+     */
+    @Nullable
+    public String lookup(RouteIndex index, Uri uri) {
+        return null;
+    }
+
     protected void parseParams(Uri uri, RouteRequest routeRequest) {
         if (uri.getQuery() != null) {
             Bundle bundle = routeRequest.getExtras();
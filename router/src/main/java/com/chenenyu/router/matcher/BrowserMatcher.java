@@ -13,13 +13,28 @@ import com.chenenyu.router.RouteRequest;
  * Created by chenenyu on 2017/1/5.
  */
 public class BrowserMatcher extends AbsImplicitMatcher {
+    private static final String[] SCHEMES = {"http", "https"};
+
     public BrowserMatcher(int priority) {
         super(priority);
     }
 
+    @Override
+    public String[] getSchemes() {
+        return SCHEMES;
+    }
+
     @Override
     public boolean match(Context context, Uri uri, @Nullable String route, RouteRequest routeRequest) {
-        return (uri.toString().toLowerCase().startsWith("http://")
-                || uri.toString().toLowerCase().startsWith("https://"));
+        return isHttp(uri);
+    }
+
+    /**
+     * Whether the uri starts with "http://" or "https://", ignoring case.
+     */
+    static boolean isHttp(Uri uri) {
+        String str = uri.toString();
+        return str.regionMatches(true, 0, "http://", 0, 7)
+                || str.regionMatches(true, 0, "https://", 0, 8);
     }
 }
@@ -4,6 +4,7 @@ import android.content.Context;
 import android.net.Uri;
 import android.support.annotation.Nullable;
 
+import com.chenenyu.router.RouteIndex;
 import com.chenenyu.router.RouteRequest;
 
 /**
@@ -22,4 +23,15 @@ public class DirectMatcher extends AbsExplicitMatcher {
         return !isEmpty(route) && uri.toString().equals(route);
     }
 
+    @Override
+    public boolean isIndexed() {
+        return true;
+    }
+
+    @Nullable
+    @Override
+    public String lookup(RouteIndex index, Uri uri) {
+        return index.exact(uri.toString());
+    }
+
 }
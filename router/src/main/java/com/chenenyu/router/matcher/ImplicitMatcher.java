@@ -1,35 +1,75 @@
 package com.chenenyu.router.matcher;
 
+import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
+import android.content.IntentFilter;
 import android.content.pm.PackageManager;
 import android.content.pm.ResolveInfo;
 import android.net.Uri;
 import android.support.annotation.Nullable;
 
 import com.chenenyu.router.RouteRequest;
+import com.chenenyu.router.util.RLog;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Support for <strong>implicit intent</strong> exclude scheme "http(s)",
  * cause we may want to resolve them in custom matcher, such as {@link SchemeMatcher},
  * or {@link BrowserMatcher}.
  * <p>
+ * Results of {@link PackageManager#resolveActivity(Intent, int)} are cached by {@link Granularity},
+ * and the cache is cleared when any package is added, removed, replaced or changed.
+ * <p>
  * Created by chenenyu on 2017/01/08.
  */
 public class ImplicitMatcher extends AbsImplicitMatcher {
+    /**
+     * Which part of the uri the resolve result is cached by.
+     */
+    public enum Granularity {
+        /**
+         * No cache, resolve every time.
+         */
+        NONE,
+        /**
+         * Uris with the same scheme share the result.
+         */
+        SCHEME,
+        /**
+         * Uris with the same scheme and host share the result. Opt into it only if the handlers' intent
+         * filters don't tell paths apart, or a miss on one path would hide the others.
+         */
+        HOST,
+        /**
+         * Cache by the whole uri.
+         */
+        URI
+    }
+
+    private static final String[] EXCLUDED_SCHEMES = {"http", "https"};
+
+    private static volatile Granularity sGranularity = Granularity.URI;
+    // cache key -> whether an activity can handle it.
+    private static final Map<String, Boolean> sResolveCache = new ConcurrentHashMap<>();
+    // incremented on each clear, so that a result resolved before it won't be cached.
+    private static final AtomicInteger sGeneration = new AtomicInteger();
+    private static final AtomicBoolean sReceiverRegistered = new AtomicBoolean(false);
+
     public ImplicitMatcher(int priority) {
         super(priority);
     }
 
     @Override
     public boolean match(Context context, Uri uri, @Nullable String route, RouteRequest routeRequest) {
-        if (uri.toString().toLowerCase().startsWith("http://")
-                || uri.toString().toLowerCase().startsWith("https://")) {
+        if (BrowserMatcher.isHttp(uri)) {
             return false;
         }
-        ResolveInfo resolveInfo = context.getPackageManager().resolveActivity(
-                new Intent(Intent.ACTION_VIEW, uri), PackageManager.MATCH_DEFAULT_ONLY);
-        if (resolveInfo != null) {
+        if (resolve(context, uri)) {
             // bundle parser
             if (uri.getQuery() != null) {
                 parseParams(uri, routeRequest);
@@ -38,4 +78,105 @@ public class ImplicitMatcher extends AbsImplicitMatcher {
         }
         return false;
     }
+
+    @Override
+    public String[] getExcludedSchemes() {
+        return EXCLUDED_SCHEMES;
+    }
+
+    /**
+     * Set the granularity of resolve cache, {@link Granularity#URI} by default.
+     */
+    public static void setCacheGranularity(Granularity granularity) {
+        sGranularity = granularity == null ? Granularity.NONE : granularity;
+        clearCache();
+    }
+
+    public static void clearCache() {
+        sGeneration.incrementAndGet();
+        sResolveCache.clear();
+    }
+
+    /**
+     * Resolve the given uris into cache ahead of time. It makes binder calls, so don't call it
+     * on main thread.
+     *
+     * @param context Context.
+     * @param uris    uris that will be routed implicitly, such as "weixin://dl/business".
+     */
+    public static void prewarm(Context context, String... uris) {
+        if (uris == null || sGranularity == Granularity.NONE) {
+            return;
+        }
+        for (String uri : uris) {
+            if (uri != null) {
+                resolve(context, Uri.parse(uri));
+            }
+        }
+    }
+
+    /**
+     * Whether there is an activity can handle the uri.
+     */
+    private static boolean resolve(Context context, Uri uri) {
+        String key = cacheKey(uri);
+        if (key != null) {
+            Boolean cached = sResolveCache.get(key);
+            if (cached != null) {
+                return cached;
+            }
+            registerPackageReceiver(context);
+        }
+        int generation = sGeneration.get();
+        ResolveInfo resolveInfo = context.getPackageManager().resolveActivity(
+                new Intent(Intent.ACTION_VIEW, uri), PackageManager.MATCH_DEFAULT_ONLY);
+        boolean resolved = resolveInfo != null;
+        if (key != null && generation == sGeneration.get() && sGranularity != Granularity.NONE) {
+            sResolveCache.put(key, resolved);
+        }
+        return resolved;
+    }
+
+    @Nullable
+    private static String cacheKey(Uri uri) {
+        switch (sGranularity) {
+            case SCHEME:
+                return String.valueOf(uri.getScheme());
+            case HOST:
+                return uri.getScheme() + "://" + uri.getHost();
+            case URI:
+                return uri.toString();
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Installed activities change with packages, so clear the cache then.
+     */
+    private static void registerPackageReceiver(Context context) {
+        if (!sReceiverRegistered.compareAndSet(false, true)) {
+            return;
+        }
+        IntentFilter filter = new IntentFilter();
+        filter.addAction(Intent.ACTION_PACKAGE_ADDED);
+        filter.addAction(Intent.ACTION_PACKAGE_REMOVED);
+        filter.addAction(Intent.ACTION_PACKAGE_REPLACED);
+        filter.addAction(Intent.ACTION_PACKAGE_CHANGED);
+        filter.addDataScheme("package");
+        try {
+            context.getApplicationContext().registerReceiver(new BroadcastReceiver() {
+                @Override
+                public void onReceive(Context context, Intent intent) {
+                    RLog.i("Package changed, clear implicit resolve cache: " + intent.getAction());
+                    clearCache();
+                }
+            }, filter);
+        } catch (Exception e) {
+            // without the receiver, the cache may be stale.
+            sReceiverRegistered.set(false);
+            RLog.e("Can't register package receiver, implicit resolve cache is disabled.", e);
+            sGranularity = Granularity.NONE;
+        }
+    }
 }
@@ -2,8 +2,11 @@ package com.chenenyu.router.matcher;
 
 import android.content.Context;
 import android.net.Uri;
+import android.os.Bundle;
 import android.support.annotation.Nullable;
 
+import com.chenenyu.router.RouteIndex;
+import com.chenenyu.router.RouteKey;
 import com.chenenyu.router.RouteRequest;
 
 /**
@@ -28,6 +31,9 @@ import com.chenenyu.router.RouteRequest;
  * <p>
  * </code>
  * <p>
+ * The path of route may contain variables, such as <code>@Route("app://user/{id}")</code>.
+ * Then <a href="">app://user/9527</a> matches it and puts <code>bundle.putString("id", "9527")</code>.
+ * <p>
  * Created by chenenyu on 2016/12/30.
  */
 public class SchemeMatcher extends AbsExplicitMatcher {
@@ -37,23 +43,28 @@ public class SchemeMatcher extends AbsExplicitMatcher {
 
     @Override
     public boolean match(Context context, Uri uri, @Nullable String route, RouteRequest routeRequest) {
-        if (isEmpty(route)) {
+        return !isEmpty(route) && matchKey(context, uri, RouteKey.parse(route), routeRequest);
+    }
+
+    @Override
+    public boolean matchKey(Context context, Uri uri, @Nullable RouteKey key, RouteRequest routeRequest) {
+        if (key == null || isEmpty(key.getRoute())) {
             return false;
         }
-        Uri routeUri = Uri.parse(route);
-        if (uri.isAbsolute() && routeUri.isAbsolute()) { // scheme != null
-            if (!uri.getScheme().equals(routeUri.getScheme())) {
+        if (uri.isAbsolute() && key.isAbsolute()) { // scheme != null
+            if (!uri.getScheme().equals(key.getScheme())) {
                 // http != https
                 return false;
             }
-            if (isEmpty(uri.getAuthority()) && isEmpty(routeUri.getAuthority())) {
+            String authority = uri.getAuthority();
+            if (isEmpty(authority) && isEmpty(key.getAuthority())) {
                 // host1 == host2 == empty
                 return true;
             }
             // google.com == google.com:443 (include port)
-            if (!isEmpty(uri.getAuthority()) && !isEmpty(routeUri.getAuthority())
-                    && uri.getAuthority().equals(routeUri.getAuthority())) {
-                if (!cutSlash(uri.getPath()).equals(cutSlash(routeUri.getPath()))) {
+            if (!isEmpty(authority) && authority.equals(key.getAuthority())) {
+                String path = uri.getPath();
+                if (!matchPath(path, key, null)) {
                     return false;
                 }
 
@@ -61,26 +72,89 @@ public class SchemeMatcher extends AbsExplicitMatcher {
                 if (uri.getQuery() != null) {
                     parseParams(uri, routeRequest);
                 }
+                // path variables override the query parameters with the same name.
+                if (key.hasVariables()) {
+                    Bundle bundle = routeRequest.getExtras();
+                    if (bundle == null) {
+                        bundle = new Bundle();
+                        routeRequest.setExtras(bundle);
+                    }
+                    matchPath(path, key, bundle);
+                }
                 return true;
             }
         }
         return false;
     }
 
+    @Override
+    public boolean isIndexed() {
+        return true;
+    }
+
+    @Nullable
+    @Override
+    public String lookup(RouteIndex index, Uri uri) {
+        // filter out most misses before parsing the uri.
+        if (!uri.isAbsolute() || !index.mayContain(uri.toString())) {
+            return null;
+        }
+        return index.find(uri.getScheme(), uri.getAuthority(), uri.getPath());
+    }
+
     /**
-     * 剔除path头部和尾部的斜杠/
+     * Compare the path of uri with the path of route segment by segment, head and tail slashes
+     * are ignored.
      *
-     * @param path 路径
-     * @return 无/的路径
+     * @param path      path of uri.
+     * @param key       route key.
+     * @param variables if not null, the values of path variables are put into it.
+     * @return True if matched, false otherwise.
      */
-    private String cutSlash(String path) {
-        if (path.startsWith("/")) {
-            return cutSlash(path.substring(1));
+    private boolean matchPath(@Nullable String path, RouteKey key, @Nullable Bundle variables) {
+        if (path == null) {
+            path = "";
+        }
+        int start = 0;
+        int end = path.length();
+        while (start < end && path.charAt(start) == '/') {
+            start++;
+        }
+        while (end > start && path.charAt(end - 1) == '/') {
+            end--;
+        }
+        if (!key.hasVariables()) {
+            String routePath = key.getPath();
+            return end - start == routePath.length() && path.regionMatches(start, routePath, 0, routePath.length());
+        }
+        String[] segments = key.getSegments();
+        if (start == end) {
+            return segments.length == 0;
         }
-        if (path.endsWith("/")) {
-            return cutSlash(path.substring(0, path.length() - 1));
+        int index = 0;
+        int from = start;
+        for (int i = start; i <= end; i++) {
+            if (i == end || path.charAt(i) == '/') {
+                if (index >= segments.length) {
+                    return false;
+                }
+                String name = key.getVariable(index);
+                if (name != null) {
+                    if (i == from) {
+                        return false;
+                    }
+                    if (variables != null) {
+                        variables.putString(name, path.substring(from, i));
+                    }
+                } else if (i - from != segments[index].length()
+                        || !path.regionMatches(from, segments[index], 0, i - from)) {
+                    return false;
+                }
+                index++;
+                from = i + 1;
+            }
         }
-        return path;
+        return index == segments.length;
     }
 
 }
@@ -0,0 +1,24 @@
+package com.chenenyu.router.template;
+
+import com.chenenyu.router.RouteInterceptor;
+
+/**
+ * Interceptor factory of a module, it creates interceptors without reflection.
+ */
+public interface InterceptorFactory {
+    /**
+     * Create the named interceptor.
+     *
+     * @param name interceptor's name.
+     * @return A new instance, or null if the module has no such interceptor.
+     */
+    RouteInterceptor create(String name);
+
+    /**
+     * Priority of the named interceptor.
+     *
+     * @param name interceptor's name.
+     * @return {@link com.chenenyu.router.annotation.Interceptor#priority()}, or 0 if the module has no such interceptor.
+     */
+    int priority(String name);
+}
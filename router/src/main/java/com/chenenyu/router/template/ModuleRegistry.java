@@ -0,0 +1,15 @@
+package com.chenenyu.router.template;
+
+/**
+ * Tables of all modules, aggregated at compile time by the module that sets the
+ * <code>moduleRegistry</code> option of annotation processor.
+ */
+public interface ModuleRegistry {
+    RouteTable[] getRouteTables();
+
+    TargetInterceptors[] getTargetInterceptors();
+
+    InterceptorTable[] getInterceptorTables();
+
+    InterceptorFactory[] getInterceptorFactories();
+}
@@ -0,0 +1,18 @@
+package com.chenenyu.router.template;
+
+/**
+ * Route table partitioned into groups, so that a group can be loaded only when a uri in it
+ * is resolved. A group is <code>scheme://authority</code>, <code>scheme:</code> or the first
+ * path segment of relative routes.
+ */
+public interface RouteGroups {
+    /**
+     * @return Names of all groups.
+     */
+    String[] getGroups();
+
+    /**
+     * @return Table of the group, or null if there is no such group.
+     */
+    RouteTable getGroup(String group);
+}
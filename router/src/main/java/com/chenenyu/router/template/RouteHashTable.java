@@ -0,0 +1,23 @@
+package com.chenenyu.router.template;
+
+import com.chenenyu.router.RouteTarget;
+
+/**
+ * Exact paths of a route table in a minimal perfect hash built at compile time, so that a path can
+ * be found without loading the table into maps.
+ *
+ * @see com.chenenyu.router.util.PerfectHash
+ */
+public interface RouteHashTable {
+    /**
+     * @param path the exact path.
+     * @return Slot of the path, or -1 if the table has no such path.
+     */
+    int indexOf(String path);
+
+    /**
+     * @param slot slot returned by {@link #indexOf(String)}.
+     * @return Target of the path in the slot, described by its class name.
+     */
+    RouteTarget getTarget(int slot);
+}
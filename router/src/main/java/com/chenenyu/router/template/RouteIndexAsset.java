@@ -0,0 +1,17 @@
+package com.chenenyu.router.template;
+
+/**
+ * Route table whose routes are also written into a binary index in assets at compile time,
+ * see {@link com.chenenyu.router.MappedRouteTable}.
+ */
+public interface RouteIndexAsset {
+    /**
+     * @return Name of the index in assets, such as <code>router/app.rtx</code>.
+     */
+    String getAssetName();
+
+    /**
+     * @return Fingerprint of the index written with this table, an index with another one is stale.
+     */
+    long getFingerprint();
+}
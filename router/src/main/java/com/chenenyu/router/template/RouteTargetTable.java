@@ -0,0 +1,18 @@
+package com.chenenyu.router.template;
+
+import com.chenenyu.router.RouteTarget;
+
+import java.util.Map;
+
+/**
+ * Route table that describes targets by class names, so that the target classes aren't loaded
+ * until they're routed to.
+ */
+public interface RouteTargetTable {
+    /**
+     * Same as {@link RouteTable#handle(Map)}, but with the targets not loaded.
+     *
+     * @param map uri -> target.
+     */
+    void handleTargets(Map<String, RouteTarget> map);
+}
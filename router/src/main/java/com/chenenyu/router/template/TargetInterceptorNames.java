@@ -0,0 +1,16 @@
+package com.chenenyu.router.template;
+
+import java.util.Map;
+
+/**
+ * Target interceptors keyed by class names, so that the target classes aren't loaded
+ * until they're routed to.
+ */
+public interface TargetInterceptorNames {
+    /**
+     * Same as {@link TargetInterceptors#handle(Map)}, but with the targets not loaded.
+     *
+     * @param map binary name of target -> interceptors.
+     */
+    void handleNames(Map<String, String[]> map);
+}
@@ -0,0 +1,80 @@
+package com.chenenyu.router.util;
+
+/**
+ * Decodes arrays that the compiler packs into string constants. Generated tables keep big arrays this
+ * way instead of array initializers, which take a few instructions per element and may exceed the
+ * size limit of a method, and the constants are split so that each of them fits in a class file.
+ */
+public final class PackedArrays {
+    /**
+     * Separator of packed strings.
+     */
+    public static final char SEPARATOR = '\0';
+
+    private PackedArrays() {
+    }
+
+    /**
+     * @return The chunks joined together.
+     */
+    public static String join(String... chunks) {
+        if (chunks.length == 1) {
+            return chunks[0];
+        }
+        int length = 0;
+        for (String chunk : chunks) {
+            length += chunk.length();
+        }
+        StringBuilder sb = new StringBuilder(length);
+        for (String chunk : chunks) {
+            sb.append(chunk);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @param chunks strings separated by {@link #SEPARATOR}, and terminated by it.
+     */
+    public static String[] strings(String... chunks) {
+        String packed = join(chunks);
+        int count = 0;
+        for (int i = 0, length = packed.length(); i < length; i++) {
+            if (packed.charAt(i) == SEPARATOR) {
+                count++;
+            }
+        }
+        String[] strings = new String[count];
+        for (int i = 0, start = 0; i < count; i++) {
+            int end = packed.indexOf(SEPARATOR, start);
+            strings[i] = packed.substring(start, end);
+            start = end + 1;
+        }
+        return strings;
+    }
+
+    /**
+     * @param chunks decimal ints separated by commas, and terminated by a comma.
+     */
+    public static int[] ints(String... chunks) {
+        String packed = join(chunks);
+        int count = 0;
+        for (int i = 0, length = packed.length(); i < length; i++) {
+            if (packed.charAt(i) == ',') {
+                count++;
+            }
+        }
+        int[] ints = new int[count];
+        for (int i = 0, pos = 0; i < count; i++, pos++) {
+            boolean negative = packed.charAt(pos) == '-';
+            if (negative) {
+                pos++;
+            }
+            long value = 0;
+            for (char c; (c = packed.charAt(pos)) != ','; pos++) {
+                value = value * 10 + (c - '0');
+            }
+            ints[i] = (int) (negative ? -value : value);
+        }
+        return ints;
+    }
+}
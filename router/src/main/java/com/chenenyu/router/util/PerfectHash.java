@@ -0,0 +1,49 @@
+package com.chenenyu.router.util;
+
+/**
+ * Lookup of the minimal perfect hash tables generated by the compiler. Each key is placed in
+ * its own slot at compile time, so a lookup hashes the key at most twice and compares one key,
+ * without allocating anything.
+ * <p>
+ * A key's bucket is <code>hash(key, 0) % n</code>. The seed of the bucket either is the slot itself,
+ * encoded as <code>-slot - 1</code>, or gives the slot by <code>hash(key, seed) % n</code>.
+ * The hash must be the same as the compiler's.
+ */
+public final class PerfectHash {
+    private static final int FNV_OFFSET = 0x811c9dc5;
+    private static final int FNV_PRIME = 0x01000193;
+
+    private PerfectHash() {
+    }
+
+    /**
+     * FNV-1a hash of the chars of the key started from the seed, mixed, never negative.
+     */
+    public static int hash(String key, int seed) {
+        int h = seed == 0 ? FNV_OFFSET : seed;
+        for (int i = 0, length = key.length(); i < length; i++) {
+            h = (h ^ key.charAt(i)) * FNV_PRIME;
+        }
+        // mix the high bits into the low bits, which are taken by the modulo.
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        return h & 0x7fffffff;
+    }
+
+    /**
+     * @param key   the key to look up.
+     * @param seeds seeds of buckets.
+     * @param keys  keys by slot.
+     * @return The slot of the key, or -1 if it's not in the table.
+     */
+    public static int indexOf(String key, int[] seeds, String[] keys) {
+        int n = keys.length;
+        if (n == 0) {
+            return -1;
+        }
+        int seed = seeds[hash(key, 0) % n];
+        int slot = seed < 0 ? -seed - 1 : hash(key, seed) % n;
+        return key.equals(keys[slot]) ? slot : -1;
+    }
+}
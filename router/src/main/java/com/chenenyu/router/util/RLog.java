@@ -15,6 +15,13 @@ public class RLog {
         sLoggable = loggable;
     }
 
+    /**
+     * Whether info logs are printed. Check it before building a log message on hot paths.
+     */
+    public static boolean isLoggable() {
+        return sLoggable;
+    }
+
     public static void i(String msg) {
         if (sLoggable) {
             Log.i(TAG, msg);
@@ -0,0 +1,38 @@
+package com.chenenyu.router.util;
+
+/**
+ * Route groups of uris at runtime. A group must be the same as the compiler partitions routes by:
+ * <ul>
+ * <li><code>scheme://authority</code> for hierarchical uris with authority, e.g. <code>app://user</code></li>
+ * <li><code>scheme:</code> for other uris with scheme, e.g. <code>app:</code></li>
+ * <li>the first path segment for relative uris, e.g. <code>user</code> of <code>user/profile</code></li>
+ * </ul>
+ */
+public final class RouteGrouping {
+    private RouteGrouping() {
+    }
+
+    /**
+     * @return The group of the uri, or null if the uri has escaped chars in the group, which needs all groups.
+     */
+    public static String groupOf(String uri) {
+        int length = uri.length();
+        int i = 0;
+        while (i < length && ":/?#".indexOf(uri.charAt(i)) < 0) {
+            i++;
+        }
+        String group;
+        if (i == length || uri.charAt(i) != ':') {
+            group = uri.substring(0, i);
+        } else if (!uri.startsWith("//", i + 1)) {
+            group = uri.substring(0, i + 1);
+        } else {
+            int end = i + 3;
+            while (end < length && "/?#".indexOf(uri.charAt(end)) < 0) {
+                end++;
+            }
+            group = end == i + 3 ? uri.substring(0, i + 1) : uri.substring(0, end);
+        }
+        return group.indexOf('%') >= 0 ? null : group;
+    }
+}
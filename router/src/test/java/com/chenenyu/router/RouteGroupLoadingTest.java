@@ -0,0 +1,201 @@
+package com.chenenyu.router;
+
+import android.app.Activity;
+
+import com.chenenyu.router.template.InterceptorFactory;
+import com.chenenyu.router.template.InterceptorTable;
+import com.chenenyu.router.template.ModuleRegistry;
+import com.chenenyu.router.template.RouteGroups;
+import com.chenenyu.router.template.RouteTable;
+import com.chenenyu.router.template.TargetInterceptors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * With lazy route groups, a group is loaded the first time a uri of it is looked up, and only once.
+ */
+public class RouteGroupLoadingTest {
+    // the tables are static, so each test registers routes of its own scheme.
+    private static final AtomicInteger SCHEMES = new AtomicInteger();
+
+    private boolean lazyRouteGroups;
+    private String scheme;
+    private LazyRouteTable table;
+
+    @Before
+    public void setUp() {
+        lazyRouteGroups = AptHub.lazyRouteGroups;
+        AptHub.lazyRouteGroups = true;
+        scheme = "lazy" + SCHEMES.incrementAndGet();
+        table = new LazyRouteTable(scheme);
+        AptHub.registerModules(new ModuleRegistry() {
+            @Override
+            public RouteTable[] getRouteTables() {
+                return new RouteTable[]{table};
+            }
+
+            @Override
+            public TargetInterceptors[] getTargetInterceptors() {
+                return new TargetInterceptors[0];
+            }
+
+            @Override
+            public InterceptorTable[] getInterceptorTables() {
+                return new InterceptorTable[0];
+            }
+
+            @Override
+            public InterceptorFactory[] getInterceptorFactories() {
+                return new InterceptorFactory[0];
+            }
+        }, null);
+    }
+
+    @After
+    public void tearDown() {
+        AptHub.lazyRouteGroups = lazyRouteGroups;
+        // load the rest, so that other tests don't see them pending.
+        AptHub.loadAllRouteGroups();
+    }
+
+    @Test
+    public void groupLoadsOnFirstLookup() {
+        for (String group : table.getGroups()) {
+            assertTrue(group, AptHub.pendingRouteGroups.containsKey(group));
+        }
+        assertNull(AptHub.routeIndex.target(scheme + "://user/{id}"));
+
+        RouteIndex index = AptHub.getRouteIndex(scheme + "://user/9527?tab=1");
+        assertNotNull(index.target(scheme + "://user/{id}"));
+        assertEquals(1, table.loads(scheme + "://user"));
+        assertFalse(AptHub.pendingRouteGroups.containsKey(scheme + "://user"));
+        // other groups are still pending.
+        assertEquals(0, table.loads(scheme + "://order"));
+        assertNull(index.target(scheme + "://order/{id}"));
+
+        index = AptHub.getRouteIndex(scheme + "/home");
+        assertNotNull(index.target(scheme + "/home"));
+        assertEquals(1, table.loads(scheme));
+        index = AptHub.getRouteIndex(scheme + ":home");
+        assertNotNull(index.target(scheme + ":home"));
+        assertEquals(1, table.loads(scheme + ":"));
+        assertEquals(0, table.loads(scheme + "://order"));
+    }
+
+    @Test
+    public void groupLoadsOnlyOnce() {
+        for (int i = 0; i < 10; i++) {
+            AptHub.getRouteIndex(scheme + "://user/" + i);
+            AptHub.getRouteIndex(scheme + "://user/" + i + "/profile");
+        }
+        assertEquals(1, table.loads(scheme + "://user"));
+        assertEquals(0, table.loads(scheme + "://order"));
+    }
+
+    @Test
+    public void groupLoadsOnlyOnceConcurrently() throws InterruptedException {
+        final CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; i++) {
+            final int id = i;
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    AptHub.getRouteIndex(scheme + "://order/" + id);
+                }
+            };
+            threads[i].start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(1, table.loads(scheme + "://order"));
+        assertNotNull(AptHub.routeIndex.target(scheme + "://order/{id}"));
+    }
+
+    @Test
+    public void escapedGroupLoadsAllGroups() {
+        AptHub.getRouteIndex(scheme + "://us%65r/1");
+        for (String group : table.getGroups()) {
+            assertEquals(group, 1, table.loads(group));
+        }
+        assertTrue(AptHub.pendingRouteGroups.isEmpty());
+    }
+
+    /**
+     * A generated route table of a module, whose groups count how many times they're loaded.
+     */
+    static class LazyRouteTable implements RouteTable, RouteGroups {
+        private final String[] groups;
+        private final ConcurrentMap<String, AtomicInteger> loads = new ConcurrentHashMap<>();
+
+        LazyRouteTable(String scheme) {
+            groups = new String[]{scheme + "://user", scheme + "://order", scheme + ":", scheme};
+        }
+
+        int loads(String group) {
+            AtomicInteger count = loads.get(group);
+            return count == null ? 0 : count.get();
+        }
+
+        @Override
+        public void handle(Map<String, Class<?>> map) {
+            for (String group : groups) {
+                getGroup(group).handle(map);
+            }
+        }
+
+        @Override
+        public String[] getGroups() {
+            return groups.clone();
+        }
+
+        @Override
+        public RouteTable getGroup(final String group) {
+            AtomicInteger count = loads.get(group);
+            if (count == null) {
+                count = new AtomicInteger();
+                AtomicInteger existing = loads.putIfAbsent(group, count);
+                if (existing != null) {
+                    count = existing;
+                }
+            }
+            count.incrementAndGet();
+            return new RouteTable() {
+                @Override
+                public void handle(Map<String, Class<?>> map) {
+                    if (group.endsWith("//user")) {
+                        map.put(group + "/{id}", Activity.class);
+                        map.put(group + "/{id}/profile", Activity.class);
+                    } else if (group.endsWith("//order")) {
+                        map.put(group + "/{id}", Activity.class);
+                    } else if (group.endsWith(":")) {
+                        map.put(group + "home", Activity.class);
+                    } else {
+                        map.put(group + "/home", Activity.class);
+                    }
+                }
+            };
+        }
+    }
+}
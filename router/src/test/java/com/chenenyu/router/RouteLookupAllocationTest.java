@@ -0,0 +1,173 @@
+package com.chenenyu.router;
+
+import android.app.Activity;
+import android.net.Uri;
+
+import com.chenenyu.router.matcher.AbsImplicitMatcher;
+import com.chenenyu.router.matcher.AbsMatcher;
+import com.chenenyu.router.matcher.DirectMatcher;
+import com.chenenyu.router.matcher.SchemeMatcher;
+import com.chenenyu.router.template.RouteTable;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Resolving a matched route must not allocate once it's warmed up: the resolution cache, the route index
+ * and the explicit matchers of {@link RealRouter}. The uris are real {@link Uri}s from the android-all
+ * test dependency, parsed ahead like {@link Router#build(Uri)} does, as they cache their decoded parts.
+ * <p>
+ * Interceptors, implicit matchers and creating the Intent or Fragment aren't covered.
+ */
+public class RouteLookupAllocationTest {
+    private static final int ROUTES = 2000;
+    private static final int ITERATIONS = 100000;
+
+    private com.sun.management.ThreadMXBean threadBean;
+    private String[] uris;
+    // exact paths are found by DirectMatcher, paths with a trailing slash by SchemeMatcher.
+    private RealRouter[] exactRouters;
+    private RealRouter[] slashRouters;
+
+    @Before
+    public void setUp() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        threadBean = (com.sun.management.ThreadMXBean) bean;
+        Assume.assumeTrue(threadBean.isThreadAllocatedMemorySupported());
+        threadBean.setThreadAllocatedMemoryEnabled(true);
+
+        uris = new String[ROUTES];
+        exactRouters = new RealRouter[ROUTES];
+        slashRouters = new RealRouter[ROUTES];
+        for (int i = 0; i < ROUTES; i++) {
+            uris[i] = "app://module" + (i % 16) + "/page/" + i;
+            exactRouters[i] = router(uris[i]);
+            slashRouters[i] = router(uris[i] + "/");
+        }
+        AptHub.routeCache.setMaxSize(ROUTES * 2);
+        AptHub.handleRouteTable(new RouteTable() {
+            @Override
+            public void handle(Map<String, Class<?>> map) {
+                for (String uri : uris) {
+                    map.put(uri, Activity.class);
+                }
+                map.put("app://user/{id}/profile", Activity.class);
+            }
+        });
+    }
+
+    @Test
+    public void resolveMatchedRoute_doesNotAllocate() {
+        // warm up, let the jit settle down.
+        for (int i = 0; i < ITERATIONS / ROUTES; i++) {
+            resolveAll();
+        }
+        long overhead = measure(0, true);
+        long allocated = measure(ITERATIONS, true) - overhead;
+        assertTrue("Allocated " + allocated + " bytes in " + ITERATIONS + " resolutions.",
+                allocated < 1024);
+    }
+
+    @Test
+    public void matchRoute_doesNotAllocate() {
+        for (int i = 0; i < ITERATIONS / ROUTES; i++) {
+            matchAll();
+        }
+        long overhead = measure(0, false);
+        long allocated = measure(ITERATIONS, false) - overhead;
+        assertTrue("Allocated " + allocated + " bytes in " + ITERATIONS + " matches.",
+                allocated < 1024);
+    }
+
+    @Test
+    public void resolveMatchedRoute_findsRoutes() {
+        for (int i = 0; i < ROUTES; i++) {
+            RouteCache.Entry exact = resolve(exactRouters[i]);
+            assertNotNull(uris[i], exact);
+            assertEquals(uris[i], exact.route);
+            assertTrue(exact.matcher instanceof DirectMatcher);
+            RouteCache.Entry slash = resolve(slashRouters[i]);
+            assertNotNull(uris[i], slash);
+            assertEquals(uris[i], slash.route);
+            assertTrue(slash.matcher instanceof SchemeMatcher);
+        }
+        assertEquals(ROUTES * 2, resolveAll());
+        assertEquals(ROUTES * 2, matchAll());
+        // matching it puts the variables into a Bundle, which needs Robolectric.
+        assertEquals("app://user/{id}/profile", AptHub.routeIndex.find("app", "user", "/9527/profile"));
+    }
+
+    private long measure(int iterations, boolean resolve) {
+        long tid = Thread.currentThread().getId();
+        long before = threadBean.getThreadAllocatedBytes(tid);
+        int found = 0;
+        for (int i = 0; i < iterations; i++) {
+            RealRouter router = (i & 1) == 0 ? exactRouters[(i >> 1) % ROUTES] : slashRouters[(i >> 1) % ROUTES];
+            found += resolve ? (resolve(router) != null ? 1 : 0) : match(router);
+        }
+        long after = threadBean.getThreadAllocatedBytes(tid);
+        assertEquals(iterations, found);
+        return after - before;
+    }
+
+    private int resolveAll() {
+        int found = 0;
+        for (int i = 0; i < ROUTES; i++) {
+            found += resolve(exactRouters[i]) != null ? 1 : 0;
+            found += resolve(slashRouters[i]) != null ? 1 : 0;
+        }
+        return found;
+    }
+
+    private int matchAll() {
+        int found = 0;
+        for (int i = 0; i < ROUTES; i++) {
+            found += match(exactRouters[i]);
+            found += match(slashRouters[i]);
+        }
+        return found;
+    }
+
+    /**
+     * What {@link IRouter#getIntent(Object)} does to find the route, a cached resolution is matched again.
+     */
+    private static RouteCache.Entry resolve(RealRouter router) {
+        return router.resolve(null, MatcherRegistry.getMatcher(router.mRouteRequest.getUri()), false);
+    }
+
+    /**
+     * The matcher loop of {@link RealRouter#resolve}, without the resolution cache.
+     */
+    private static int match(RealRouter router) {
+        Uri uri = router.mRouteRequest.getUri();
+        RouteIndex index = AptHub.getRouteIndex(uri.toString());
+        List<AbsMatcher> matchers = MatcherRegistry.getMatcher(uri);
+        for (int i = 0, size = matchers.size(); i < size; i++) {
+            AbsMatcher matcher = matchers.get(i);
+            if (!(matcher instanceof AbsImplicitMatcher) && router.findRoute(null, index, matcher) != null) {
+                return 1;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * A router of the uri. The request is set directly, the Bundle that {@link RealRouter#build(Uri)}
+     * puts the raw uri into doesn't run without the instrumentation of Robolectric.
+     */
+    private static RealRouter router(String uri) {
+        RealRouter router = new RealRouter();
+        router.mRouteRequest = new RouteRequest(Uri.parse(uri));
+        return router;
+    }
+}